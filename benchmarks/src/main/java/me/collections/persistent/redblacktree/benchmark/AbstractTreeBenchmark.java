@@ -0,0 +1,52 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Shared key material. A tree of {@code size} keys holds the even numbers {@code 0, 2, ..., 2 * (size - 1)}, so the
+ * {@code i}-th query has a present key {@code 2 * index} and an absent key {@code 2 * index + 1}.
+ * Keys are boxed upfront so boxing never shows up in the measured methods.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+public abstract class AbstractTreeBenchmark {
+
+    static final int QUERIES = 1 << 16;
+    private static final int MASK = QUERIES - 1;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"SEQUENTIAL", "RANDOM", "ZIPFIAN"})
+    public KeyDistribution distribution;
+
+    Integer[] initial;
+    Integer[] present;
+    Integer[] absent;
+    private int cursor;
+
+    void generateKeys() {
+        initial = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            initial[i] = 2 * i;
+        }
+        int[] indexes = distribution.generate(QUERIES, size, new Random(42));
+        present = new Integer[QUERIES];
+        absent = new Integer[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            present[i] = initial[indexes[i]];
+            absent[i] = 2 * indexes[i] + 1;
+        }
+        cursor = 0;
+    }
+
+    int next() {
+        return cursor++ & MASK;
+    }
+}
@@ -0,0 +1,73 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.AppendOnlyTreeStore;
+import me.collections.persistent.redblacktree.KeyCodec;
+import me.collections.persistent.redblacktree.MappedRedBlackTree;
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durability cost of one update: committing the new version to an {@link AppendOnlyTreeStore}, which writes the
+ * copied path and forces both files, against rewriting a full {@link MappedRedBlackTree} snapshot without forcing it.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class AppendOnlyTreeStoreBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    Path directory, file;
+    AppendOnlyTreeStore<Long> store;
+    PersistentRedBlackTree<Long> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Long[] keys = new Long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2L * i;
+        }
+        tree = PersistentRedBlackTree.fromSorted(keys);
+        directory = Files.createTempDirectory("store");
+        file = directory.resolve("tree.snapshot");
+        store = AppendOnlyTreeStore.open(directory, KeyCodec.LONG);
+        store.commit(tree);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        Files.walk(directory)
+                .sorted(Comparator.reverseOrder())
+                .forEach(path -> path.toFile().delete());
+    }
+
+    private PersistentRedBlackTree<Long> update() {
+        long key = 2L * ThreadLocalRandom.current().nextInt(size);
+        return tree = tree.contains(key) ? tree.remove(key) : tree.add(key);
+    }
+
+    @Benchmark
+    public int commit() throws IOException {
+        return store.commit(update());
+    }
+
+    @Benchmark
+    public void writeSnapshot() throws IOException {
+        MappedRedBlackTree.write(update(), KeyCodec.LONG, file);
+    }
+}
@@ -0,0 +1,70 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applying a batch of inserts followed by the same number of removals to a tree of {@code size} keys.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BatchUpdateBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"1000", "100000"})
+    public int batch;
+
+    PersistentRedBlackTree<Integer> tree;
+    Integer[] added;
+    Integer[] removed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        tree = PersistentRedBlackTree.fromSorted(keys);
+
+        Random random = new Random(42);
+        added = new Integer[batch];
+        removed = new Integer[batch];
+        for (int i = 0; i < batch; i++) {
+            added[i] = 2 * random.nextInt(size) + 1;
+            removed[i] = keys[random.nextInt(size)];
+        }
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> persistent() {
+        PersistentRedBlackTree<Integer> result = tree;
+        for (Integer key : added) {
+            result = result.add(key);
+        }
+        for (Integer key : removed) {
+            result = result.remove(key);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> transientBatch() {
+        return tree.asTransient()
+                .addAll(Arrays.asList(added))
+                .removeAll(Arrays.asList(removed))
+                .persistent();
+    }
+}
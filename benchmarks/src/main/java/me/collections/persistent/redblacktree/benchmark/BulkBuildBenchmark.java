@@ -0,0 +1,55 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to load a snapshot of {@code size} sorted keys.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BulkBuildBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    Integer[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> fromSorted() {
+        return PersistentRedBlackTree.fromSorted(keys);
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> repeatedAdd() {
+        PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+        for (Integer key : keys) {
+            tree = tree.add(key);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public TreeSet<Integer> treeSet() {
+        return new TreeSet<>(Arrays.asList(keys));
+    }
+}
@@ -0,0 +1,67 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diffing a tree of {@code size} keys against a version derived from it by {@code changes} adds and removes:
+ * {@link PersistentRedBlackTree#diff}, which skips shared subtrees, against merging two full in-order iterations.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DiffBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"3", "1000"})
+    public int changes;
+
+    PersistentRedBlackTree<Integer> older;
+    PersistentRedBlackTree<Integer> newer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        older = PersistentRedBlackTree.fromSorted(keys);
+        newer = older;
+        for (int i = 0; i < changes; i++) {
+            newer = random.nextBoolean() ? newer.add(2 * random.nextInt(size) + 1)
+                    : newer.remove(2 * random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public void diff(Blackhole blackhole) {
+        PersistentRedBlackTree.diff(older, newer, blackhole::consume, blackhole::consume);
+    }
+
+    @Benchmark
+    public void mergeIterators(Blackhole blackhole) {
+        Iterator<Integer> a = older.iterator(), b = newer.iterator();
+        Integer x = a.hasNext() ? a.next() : null, y = b.hasNext() ? b.next() : null;
+        while (x != null || y != null) {
+            int compare = x == null ? 1 : y == null ? -1 : x.compareTo(y);
+            if (compare < 0) blackhole.consume(x);
+            if (compare > 0) blackhole.consume(y);
+            if (compare <= 0) x = a.hasNext() ? a.next() : null;
+            if (compare >= 0) y = b.hasNext() ? b.next() : null;
+        }
+    }
+}
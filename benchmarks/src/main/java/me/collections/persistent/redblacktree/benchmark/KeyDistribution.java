@@ -0,0 +1,74 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import java.util.Random;
+
+/**
+ * Shapes of the key streams the benchmarks replay. Every distribution yields indexes in {@code [0, bound)}.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+public enum KeyDistribution {
+    SEQUENTIAL {
+        @Override
+        int[] generate(int count, int bound, Random random) {
+            int[] indexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                indexes[i] = i % bound;
+            }
+            return indexes;
+        }
+    },
+    RANDOM {
+        @Override
+        int[] generate(int count, int bound, Random random) {
+            int[] indexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                indexes[i] = random.nextInt(bound);
+            }
+            return indexes;
+        }
+    },
+    /**
+     * YCSB-style zipfian stream (theta = 0.99). Ranks are scrambled so that the hot keys are spread over the tree
+     * instead of all sitting in its leftmost corner.
+     */
+    ZIPFIAN {
+        private static final double THETA = 0.99;
+
+        @Override
+        int[] generate(int count, int bound, Random random) {
+            double zetaN = 0;
+            for (int i = 1; i <= bound; i++) {
+                zetaN += 1 / Math.pow(i, THETA);
+            }
+            double alpha = 1 / (1 - THETA);
+            double zeta2 = 1 + 1 / Math.pow(2, THETA);
+            double eta = (1 - Math.pow(2.0 / bound, 1 - THETA)) / (1 - zeta2 / zetaN);
+
+            int[] indexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                double u = random.nextDouble();
+                double uz = u * zetaN;
+                long rank;
+                if (uz < 1) {
+                    rank = 0;
+                } else if (uz < 1 + Math.pow(0.5, THETA)) {
+                    rank = 1;
+                } else {
+                    rank = (long) (bound * Math.pow(eta * u - eta + 1, alpha));
+                }
+                indexes[i] = scramble(Math.min(rank, bound - 1), bound);
+            }
+            return indexes;
+        }
+
+        private int scramble(long rank, int bound) {
+            long h = rank * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+            return (int) Math.floorMod(h, (long) bound);
+        }
+    };
+
+    abstract int[] generate(int count, int bound, Random random);
+}
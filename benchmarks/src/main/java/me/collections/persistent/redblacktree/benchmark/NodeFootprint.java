@@ -0,0 +1,69 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.btree.PersistentBTree;
+import me.collections.persistent.redblacktree.LongArena;
+import me.collections.persistent.redblacktree.OffHeapLongRedBlackTree;
+import me.collections.persistent.redblacktree.PersistentLongRedBlackTree;
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import me.collections.persistent.redblacktree.PersistentTreeMap;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.Collections;
+import java.util.TreeSet;
+
+/**
+ * Prints the JOL layout of every node class and the retained size of trees of {@code size} keys (1M by default),
+ * split per class. Run it with the VM flags of the target heap, e.g. {@code -XX:-UseCompressedOops} above 32 GB:
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar me.collections.persistent.redblacktree.benchmark.NodeFootprint 1000000
+ * </pre>
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+public class NodeFootprint {
+
+    private static final String PACKAGE = "me.collections.persistent.redblacktree.";
+
+    public static void main(String[] args) throws ClassNotFoundException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println(VM.current().details());
+        for (String name : new String[]{"Node", "EditableNode", "MapNode", "LongNode"}) {
+            System.out.println(ClassLayout.parseClass(Class.forName(PACKAGE + name)).toPrintable());
+        }
+
+        PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+        PersistentBTree<Integer> bTree = new PersistentBTree<>();
+        PersistentTreeMap<Integer, Integer> map = new PersistentTreeMap<>();
+        PersistentLongRedBlackTree longTree = new PersistentLongRedBlackTree();
+        OffHeapLongRedBlackTree offHeapTree = new OffHeapLongRedBlackTree(new LongArena());
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            tree = tree.add(i);
+            bTree = bTree.add(i);
+            map = map.put(i, i);
+            longTree = longTree.add(i);
+            offHeapTree = offHeapTree.add(i);
+            treeSet.add(i);
+        }
+        print("PersistentRedBlackTree<Integer>", GraphLayout.parseInstance(tree), size);
+        print("PersistentBTree<Integer>", GraphLayout.parseInstance(bTree), size);
+        print("PersistentTreeMap<Integer, Integer>", GraphLayout.parseInstance(map), size);
+        print("PersistentLongRedBlackTree", GraphLayout.parseInstance(longTree), size);
+        LongArena arena = offHeapTree.arena();
+        offHeapTree = arena.compact(Collections.singletonList(offHeapTree)).get(0);
+        arena.close();
+        print("OffHeapLongRedBlackTree (heap part)", GraphLayout.parseInstance(offHeapTree), size);
+        System.out.printf("OffHeapLongRedBlackTree, %d keys: %d bytes off-heap in %d records%n",
+                size, offHeapTree.arena().reservedBytes(), offHeapTree.arena().nodeCount());
+        print("TreeSet<Integer>", GraphLayout.parseInstance(treeSet), size);
+    }
+
+    private static void print(String title, GraphLayout layout, int size) {
+        System.out.printf("%s, %d keys: %d bytes, %.1f bytes per key%n",
+                title, size, layout.totalSize(), (double) layout.totalSize() / size);
+        System.out.println(layout.toFootprint());
+    }
+}
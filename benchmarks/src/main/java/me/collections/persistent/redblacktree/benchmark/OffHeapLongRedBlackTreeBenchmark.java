@@ -0,0 +1,75 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.LongArena;
+import me.collections.persistent.redblacktree.OffHeapLongRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same operations as {@link PersistentLongRedBlackTreeBenchmark} on {@link OffHeapLongRedBlackTree}. Updates append
+ * to the arena without ever freeing, so the base tree is compacted into a fresh arena before every iteration.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:MaxDirectMemorySize=3g"})
+public class OffHeapLongRedBlackTreeBenchmark extends AbstractTreeBenchmark {
+
+    OffHeapLongRedBlackTree tree;
+    long[] presentKeys;
+    long[] absentKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generateKeys();
+        tree = new OffHeapLongRedBlackTree(new LongArena());
+        for (Integer key : initial) {
+            tree = tree.add(key);
+        }
+        presentKeys = new long[QUERIES];
+        absentKeys = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            presentKeys[i] = present[i];
+            absentKeys[i] = absent[i];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void compact() {
+        LongArena arena = tree.arena();
+        tree = arena.compact(Collections.singletonList(tree)).get(0);
+        arena.close();
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(presentKeys[next()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return tree.contains(absentKeys[next()]);
+    }
+
+    @Benchmark
+    public OffHeapLongRedBlackTree add() {
+        return tree.add(absentKeys[next()]);
+    }
+
+    @Benchmark
+    public OffHeapLongRedBlackTree remove() {
+        return tree.remove(presentKeys[next()]);
+    }
+
+    @Benchmark
+    public OffHeapLongRedBlackTree pollMin() {
+        return tree.removeMin();
+    }
+}
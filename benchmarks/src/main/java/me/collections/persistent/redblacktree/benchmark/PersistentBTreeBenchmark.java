@@ -0,0 +1,59 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.btree.PersistentBTree;
+import me.collections.util.Pair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same operations as {@link PersistentRedBlackTreeBenchmark} on {@link PersistentBTree}, so the two reports line up
+ * key for key.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistentBTreeBenchmark extends AbstractTreeBenchmark {
+
+    PersistentBTree<Integer> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generateKeys();
+        tree = new PersistentBTree<>();
+        for (Integer key : initial) {
+            tree = tree.add(key);
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(present[next()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return tree.contains(absent[next()]);
+    }
+
+    @Benchmark
+    public PersistentBTree<Integer> add() {
+        return tree.add(absent[next()]);
+    }
+
+    @Benchmark
+    public PersistentBTree<Integer> remove() {
+        return tree.remove(present[next()]);
+    }
+
+    @Benchmark
+    public Pair<Integer, PersistentBTree<Integer>> pollMin() {
+        return tree.pollMin();
+    }
+}
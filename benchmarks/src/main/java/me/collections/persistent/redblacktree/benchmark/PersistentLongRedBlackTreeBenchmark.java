@@ -0,0 +1,66 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.PersistentLongRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same operations as {@link PersistentRedBlackTreeBenchmark} on {@link PersistentLongRedBlackTree}, so the two
+ * reports line up key for key. Keys are unboxed upfront.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistentLongRedBlackTreeBenchmark extends AbstractTreeBenchmark {
+
+    PersistentLongRedBlackTree tree;
+    long[] presentKeys;
+    long[] absentKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generateKeys();
+        tree = new PersistentLongRedBlackTree();
+        for (Integer key : initial) {
+            tree = tree.add(key);
+        }
+        presentKeys = new long[QUERIES];
+        absentKeys = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            presentKeys[i] = present[i];
+            absentKeys[i] = absent[i];
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(presentKeys[next()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return tree.contains(absentKeys[next()]);
+    }
+
+    @Benchmark
+    public PersistentLongRedBlackTree add() {
+        return tree.add(absentKeys[next()]);
+    }
+
+    @Benchmark
+    public PersistentLongRedBlackTree remove() {
+        return tree.remove(presentKeys[next()]);
+    }
+
+    @Benchmark
+    public PersistentLongRedBlackTree pollMin() {
+        return tree.removeMin();
+    }
+}
@@ -0,0 +1,94 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import me.collections.util.Pair;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-operation throughput of {@link PersistentRedBlackTree}. Every operation is applied to the same base tree,
+ * so the tree never drifts from its configured size. Run with {@code -prof gc} to get allocation rate per op.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistentRedBlackTreeBenchmark extends AbstractTreeBenchmark {
+
+    PersistentRedBlackTree<Integer> tree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generateKeys();
+        tree = new PersistentRedBlackTree<>();
+        for (Integer key : initial) {
+            tree = tree.add(key);
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(present[next()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return tree.contains(absent[next()]);
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> add() {
+        return tree.add(absent[next()]);
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> remove() {
+        return tree.remove(present[next()]);
+    }
+
+    @Benchmark
+    public Pair<Integer, PersistentRedBlackTree<Integer>> pollMin() {
+        return tree.pollMin();
+    }
+
+    /**
+     * Reads and writes interleaved on an evolving tree. A write toggles its key, so the expected size stays at
+     * {@code size}.
+     */
+    @State(Scope.Thread)
+    public static class Mix {
+        @Param({"10", "50"})
+        public int writePercent;
+
+        boolean[] writes;
+        PersistentRedBlackTree<Integer> current;
+
+        @Setup(Level.Iteration)
+        public void setUp(PersistentRedBlackTreeBenchmark benchmark) {
+            Random random = new Random(7);
+            writes = new boolean[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                writes[i] = random.nextInt(100) < writePercent;
+            }
+            current = benchmark.tree;
+        }
+    }
+
+    @Benchmark
+    public boolean mixed(Mix mix) {
+        int i = next();
+        Integer key = (i & 1) == 0 ? present[i] : absent[i];
+        boolean contains = mix.current.contains(key);
+        if (mix.writes[i]) {
+            mix.current = contains ? mix.current.remove(key) : mix.current.add(key);
+        }
+        return contains;
+    }
+}
@@ -0,0 +1,88 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combining two trees of {@code size} keys each. {@code overlap} is the share of keys of the second tree drawn
+ * from the first one, the rest are fresh, so low values model merging mostly disjoint snapshots.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SetAlgebraBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"0.1", "0.9"})
+    public double overlap;
+
+    @Param({"8192"})
+    public int cutoff;
+
+    PersistentRedBlackTree<Integer> first;
+    PersistentRedBlackTree<Integer> second;
+    ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Integer[] firstKeys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            firstKeys[i] = 2 * i;
+        }
+        first = PersistentRedBlackTree.fromSorted(firstKeys);
+        TreeSet<Integer> secondKeys = new TreeSet<>();
+        while (secondKeys.size() < size) {
+            secondKeys.add(random.nextDouble() < overlap ? 2 * random.nextInt(size) : 2 * random.nextInt(size) + 1);
+        }
+        second = PersistentRedBlackTree.fromSorted(secondKeys);
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> union() {
+        return first.union(second);
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> unionParallel() {
+        return first.unionParallel(second, pool, cutoff);
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> difference() {
+        return first.difference(second);
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> differenceParallel() {
+        return first.differenceParallel(second, pool, cutoff);
+    }
+
+    @Benchmark
+    public PersistentRedBlackTree<Integer> addLoop() {
+        PersistentRedBlackTree<Integer> result = first;
+        for (Integer key : second) {
+            result = result.add(key);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.FlatCombiningRedBlackTree;
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import me.collections.persistent.redblacktree.SharedRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write throughput of one tree shared by all benchmark threads: a lock around the tree, CAS updates of a
+ * {@link SharedRedBlackTree} and {@link FlatCombiningRedBlackTree} requests. Half of the updates add a random key and
+ * half remove one, so the tree stays at about {@code size} keys. Scaling curves come from running with
+ * {@code -t 1}, {@code -t 2} and so on up to {@code -t 64}.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SharedTreeBenchmark {
+
+    @Param({"100000"})
+    public int size;
+
+    PersistentRedBlackTree<Integer> locked;
+    SharedRedBlackTree<Integer> shared;
+    FlatCombiningRedBlackTree<Integer> combining;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        locked = PersistentRedBlackTree.fromSorted(keys);
+        shared = new SharedRedBlackTree<>(locked);
+        combining = new FlatCombiningRedBlackTree<>(new SharedRedBlackTree<>(locked));
+    }
+
+    @Benchmark
+    public boolean lock() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = random.nextInt(2 * size);
+        boolean add = random.nextBoolean();
+        synchronized (this) {
+            PersistentRedBlackTree<Integer> updated = add ? locked.add(key) : locked.remove(key);
+            boolean changed = updated != locked;
+            locked = updated;
+            return changed;
+        }
+    }
+
+    @Benchmark
+    public boolean cas() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = random.nextInt(2 * size);
+        return random.nextBoolean() ? shared.add(key) : shared.remove(key);
+    }
+
+    @Benchmark
+    public boolean flatCombining() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Integer key = random.nextInt(2 * size);
+        return (random.nextBoolean() ? combining.add(key) : combining.remove(key)).changed();
+    }
+}
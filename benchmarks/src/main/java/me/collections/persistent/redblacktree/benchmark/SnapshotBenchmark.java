@@ -0,0 +1,87 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import me.collections.persistent.redblacktree.KeyCodec;
+import me.collections.persistent.redblacktree.MappedRedBlackTree;
+import me.collections.persistent.redblacktree.PersistentRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restart cost: opening a mapped snapshot against materializing it into a heap tree, and lookups served from the
+ * mapping against the heap tree. The snapshot is written once per trial to a temporary file.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotBenchmark {
+
+    private static final int QUERIES = 1 << 16;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    Path file;
+    MappedRedBlackTree<Long> mapped;
+    PersistentRedBlackTree<Long> tree;
+    Long[] queries;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Long[] keys = new Long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2L * i;
+        }
+        tree = PersistentRedBlackTree.fromSorted(keys);
+        file = Files.createTempFile("tree", ".snapshot");
+        MappedRedBlackTree.write(tree, KeyCodec.LONG, file);
+        mapped = MappedRedBlackTree.open(file, KeyCodec.LONG);
+        Random random = new Random(42);
+        queries = new Long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = 2L * random.nextInt(size);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Long open() throws IOException {
+        return MappedRedBlackTree.open(file, KeyCodec.LONG).peekMin();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PersistentRedBlackTree<Long> rebuild() throws IOException {
+        return MappedRedBlackTree.open(file, KeyCodec.LONG).toTree();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean containsMapped() {
+        return mapped.contains(queries[cursor++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean containsHeap() {
+        return tree.contains(queries[cursor++ & (QUERIES - 1)]);
+    }
+}
@@ -0,0 +1,99 @@
+package me.collections.persistent.redblacktree.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TreeSet} baseline for {@link PersistentRedBlackTreeBenchmark}. A mutable set would drift away from its
+ * configured size, so every mutation here is undone within the same invocation: the numbers are an upper bound of
+ * two {@link TreeSet} operations against one persistent operation.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TreeSetBenchmark extends AbstractTreeBenchmark {
+
+    TreeSet<Integer> set;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generateKeys();
+        set = new TreeSet<>();
+        for (Integer key : initial) {
+            set.add(key);
+        }
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return set.contains(present[next()]);
+    }
+
+    @Benchmark
+    public boolean containsAbsent() {
+        return set.contains(absent[next()]);
+    }
+
+    @Benchmark
+    public boolean addAndUndo() {
+        Integer key = absent[next()];
+        return set.add(key) & set.remove(key);
+    }
+
+    @Benchmark
+    public boolean removeAndUndo() {
+        Integer key = present[next()];
+        return set.remove(key) & set.add(key);
+    }
+
+    @Benchmark
+    public Integer pollMinAndUndo() {
+        Integer min = set.pollFirst();
+        set.add(min);
+        return min;
+    }
+
+    /**
+     * Same mix as {@link PersistentRedBlackTreeBenchmark.Mix}: a write toggles its key.
+     */
+    @State(Scope.Thread)
+    public static class Mix {
+        @Param({"10", "50"})
+        public int writePercent;
+
+        boolean[] writes;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            Random random = new Random(7);
+            writes = new boolean[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                writes[i] = random.nextInt(100) < writePercent;
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean mixed(Mix mix) {
+        int i = next();
+        Integer key = (i & 1) == 0 ? present[i] : absent[i];
+        boolean contains = set.contains(key);
+        if (mix.writes[i]) {
+            if (contains) {
+                set.remove(key);
+            } else {
+                set.add(key);
+            }
+        }
+        return contains;
+    }
+}
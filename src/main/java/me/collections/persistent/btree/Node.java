@@ -0,0 +1,205 @@
+package me.collections.persistent.btree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Immutable node of a {@link PersistentBTree}. A leaf keeps up to {@link #MAX_WIDTH} sorted keys, a branch keeps up
+ * to {@link #MAX_WIDTH} children and one separator less: {@code keys[i]} is greater than every key of
+ * {@code children[i]} and less than or equal to every key of {@code children[i + 1]}. Separators may outlive the keys
+ * they were copied from, a removal never has to fix them.
+ * <p>
+ * Arrays are never written after construction, so an updated node shares them with its source whenever it can.
+ * Every node except the root holds at least {@link #MIN_WIDTH} entries.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("unchecked")
+final class Node<K> {
+
+    static final int MAX_WIDTH = 32, MIN_WIDTH = MAX_WIDTH / 2;
+
+    /**
+     * Height bound of a tree of {@code Integer.MAX_VALUE} keys with half-full nodes.
+     */
+    static final int MAX_HEIGHT = 12;
+
+    private static final Node EMPTY = new Node<>(new Object[0], null, 0);
+
+    final Object[] keys;
+    final Node<K>[] children;
+    final int size;
+
+    Node(Object[] keys, Node<K>[] children, int size) {
+        this.keys = keys;
+        this.children = children;
+        this.size = size;
+    }
+
+    static <K1> Node<K1> empty() {
+        return EMPTY;
+    }
+
+    static <K1> Node<K1> leaf(Object[] keys) {
+        return new Node<>(keys, null, keys.length);
+    }
+
+    static <K1> Node<K1> branch(Object[] keys, Node<K1>[] children) {
+        int size = 0;
+        for (Node<K1> child : children) {
+            size += child.size;
+        }
+        return new Node<>(keys, children, size);
+    }
+
+    boolean isLeaf() {
+        return children == null;
+    }
+
+    /**
+     * Number of keys of a leaf or of children of a branch.
+     */
+    int width() {
+        return children == null ? keys.length : children.length;
+    }
+
+    K key(int i) {
+        return (K) keys[i];
+    }
+
+    /**
+     * @return index of {@code x} in a leaf, or {@code -(insertion point) - 1} as {@link Arrays#binarySearch}
+     */
+    int search(K x, Comparator<K> comparator) {
+        int lo = 0, hi = keys.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int compare = comparator.compare((K) keys[mid], x);
+            if (compare < 0) {
+                lo = mid + 1;
+            } else if (compare > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * @return index of the child of a branch that may hold {@code x}
+     */
+    int childIndex(K x, Comparator<K> comparator) {
+        int i = search(x, comparator);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    Node<K> withChild(int i, Node<K> child) {
+        Node<K>[] newChildren = children.clone();
+        newChildren[i] = child;
+        return new Node<>(keys, newChildren, size - children[i].size + child.size);
+    }
+
+    /**
+     * Replaces the child {@code i} by an overfull one split in two halves.
+     */
+    Node<K> withSplitChild(int i, Node<K> child) {
+        Node<K>[] newChildren = (Node<K>[]) new Node[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, i);
+        newChildren[i] = child.lowerHalf();
+        newChildren[i + 1] = child.upperHalf();
+        System.arraycopy(children, i + 1, newChildren, i + 2, children.length - i - 1);
+        return new Node<>(insert(keys, i, child.middleKey()), newChildren, size - children[i].size + child.size);
+    }
+
+    /**
+     * Replaces the child {@code i} by an underfull one, borrowing from or merging with a sibling.
+     */
+    Node<K> withUnderfullChild(int i, Node<K> child) {
+        int l = i > 0 ? i - 1 : i;
+        Node<K> merged = l == i ? concat(child, keys[l], children[l + 1]) : concat(children[l], keys[l], child);
+        int newSize = size - children[i].size + child.size;
+        if (merged.width() <= MAX_WIDTH) {
+            Node<K>[] newChildren = (Node<K>[]) new Node[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, l);
+            newChildren[l] = merged;
+            System.arraycopy(children, l + 2, newChildren, l + 1, children.length - l - 2);
+            return new Node<>(remove(keys, l), newChildren, newSize);
+        }
+        Node<K>[] newChildren = children.clone();
+        newChildren[l] = merged.lowerHalf();
+        newChildren[l + 1] = merged.upperHalf();
+        Object[] newKeys = keys.clone();
+        newKeys[l] = merged.middleKey();
+        return new Node<>(newKeys, newChildren, newSize);
+    }
+
+    private static <K1> Node<K1> concat(Node<K1> left, Object separator, Node<K1> right) {
+        if (left.isLeaf()) {
+            return leaf(concat(left.keys, right.keys));
+        }
+        Node<K1>[] children = (Node<K1>[]) new Node[left.children.length + right.children.length];
+        System.arraycopy(left.children, 0, children, 0, left.children.length);
+        System.arraycopy(right.children, 0, children, left.children.length, right.children.length);
+        return new Node<>(concat(insert(left.keys, left.keys.length, separator), right.keys), children,
+                left.size + right.size);
+    }
+
+    Node<K> lowerHalf() {
+        int half = width() / 2;
+        if (isLeaf()) {
+            return leaf(copy(keys, 0, half));
+        }
+        return branch(copy(keys, 0, half - 1), copy(children, 0, half));
+    }
+
+    Node<K> upperHalf() {
+        int half = width() / 2;
+        if (isLeaf()) {
+            return leaf(copy(keys, half, keys.length));
+        }
+        return branch(copy(keys, half, keys.length), copy(children, half, children.length));
+    }
+
+    /**
+     * Separator between {@link #lowerHalf()} and {@link #upperHalf()}.
+     */
+    Object middleKey() {
+        int half = width() / 2;
+        return isLeaf() ? keys[half] : keys[half - 1];
+    }
+
+    static <T> T[] insert(T[] array, int i, T value) {
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, i, result, i + 1, array.length - i);
+        result[i] = value;
+        return result;
+    }
+
+    static <T> T[] remove(T[] array, int i) {
+        T[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, i + 1, result, i, array.length - i - 1);
+        return result;
+    }
+
+    private static <T> T[] concat(T[] left, T[] right) {
+        T[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private static <T> T[] copy(T[] array, int from, int to) {
+        return Arrays.copyOfRange(array, from, to);
+    }
+
+    @Override
+    public String toString() {
+        if (isLeaf()) return Arrays.toString(keys);
+        StringBuilder builder = new StringBuilder("{").append(children[0]);
+        for (int i = 0; i < keys.length; i++) {
+            builder.append(' ').append(keys[i]).append(' ').append(children[i + 1]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,91 @@
+package me.collections.persistent.btree;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * In-order iterator over a {@link PersistentBTree}. It walks a leaf array by index and keeps the branches on the
+ * way down in a fixed stack, so a step costs one array read and there is one descent per leaf.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("unchecked")
+final class NodeIterator<K> implements Iterator<K> {
+
+    private final Node<K>[] path = (Node<K>[]) new Node[Node.MAX_HEIGHT];
+    private final int[] indexes = new int[Node.MAX_HEIGHT];
+    private final int step;
+    private int depth;
+    private Node<K> leaf;
+    private int index;
+
+    NodeIterator(Node<K> root, boolean descending) {
+        this.step = descending ? -1 : 1;
+        descend(root);
+    }
+
+    /**
+     * Ascending iterator starting at the least key greater than {@code from}, or equal to it if {@code inclusive}.
+     */
+    NodeIterator(Node<K> root, K from, boolean inclusive, Comparator<K> comparator) {
+        this.step = 1;
+        Node<K> node = root;
+        while (!node.isLeaf()) {
+            int i = node.childIndex(from, comparator);
+            path[depth] = node;
+            indexes[depth++] = i;
+            node = node.children[i];
+        }
+        int i = node.search(from, comparator);
+        leaf = node;
+        index = i >= 0 ? (inclusive ? i : i + 1) : -i - 1;
+        if (index == leaf.keys.length) {
+            nextLeaf();
+        }
+    }
+
+    private void descend(Node<K> node) {
+        while (!node.isLeaf()) {
+            int i = step > 0 ? 0 : node.children.length - 1;
+            path[depth] = node;
+            indexes[depth++] = i;
+            node = node.children[i];
+        }
+        leaf = node;
+        index = step > 0 ? 0 : node.keys.length - 1;
+    }
+
+    private void nextLeaf() {
+        while (depth > 0) {
+            int d = depth - 1;
+            int i = indexes[d] + step;
+            if (i >= 0 && i < path[d].children.length) {
+                indexes[d] = i;
+                descend(path[d].children[i]);
+                return;
+            }
+            depth = d;
+        }
+        leaf = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return leaf != null && index >= 0 && index < leaf.keys.length;
+    }
+
+    @Override
+    public K next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        K key = leaf.key(index);
+        index += step;
+        if (index < 0 || index == leaf.keys.length) {
+            nextLeaf();
+        }
+        return key;
+    }
+}
@@ -0,0 +1,529 @@
+package me.collections.persistent.btree;
+
+import me.collections.util.Pair;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static me.collections.persistent.btree.Node.MAX_WIDTH;
+import static me.collections.persistent.btree.Node.MIN_WIDTH;
+
+/**
+ * Persistent sorted set on a B+-tree with up to {@value Node#MAX_WIDTH} keys or children per node. Lookups touch
+ * about log32(n) nodes and binary search their key arrays instead of chasing 2 * log2(n) binary nodes, and keys are
+ * packed into arrays instead of one object per key. The price is on updates: a path copy clones a few arrays of up
+ * to 32 references instead of a few small nodes.
+ * <p>
+ * Keys are unique: adding a present key or removing an absent one returns this very tree.
+ * Unlike {@link me.collections.persistent.redblacktree.PersistentRedBlackTree}, equality is by keys, the shape of
+ * a B+-tree depends on the order of updates.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("unchecked")
+public class PersistentBTree<K extends Comparable<K>> implements Iterable<K> {
+
+    private final Node<K> root;
+    private final Comparator<K> comparator;
+
+    public PersistentBTree() {
+        this(Node.empty(), Comparator.naturalOrder());
+    }
+
+    public PersistentBTree(Comparator<K> comparator) {
+        this(Node.empty(), checkNotNull(comparator));
+    }
+
+    private PersistentBTree(Node<K> root, Comparator<K> comparator) {
+        this.root = root;
+        this.comparator = comparator;
+    }
+
+    public static <K extends Comparable<K>> PersistentBTree<K> fromSorted(K[] keys) {
+        return fromSorted(Arrays.asList(keys), Comparator.naturalOrder());
+    }
+
+    public static <K extends Comparable<K>> PersistentBTree<K> fromSorted(K[] keys, Comparator<K> comparator) {
+        return fromSorted(Arrays.asList(keys), comparator);
+    }
+
+    public static <K extends Comparable<K>> PersistentBTree<K> fromSorted(Iterable<? extends K> keys) {
+        return fromSorted(keys, Comparator.naturalOrder());
+    }
+
+    /**
+     * Builds a tree from strictly ascending keys in linear time. Nodes are filled evenly level by level, so every
+     * node is at least half full and most are full.
+     */
+    public static <K extends Comparable<K>> PersistentBTree<K> fromSorted(Iterable<? extends K> keys,
+                                                                         Comparator<K> comparator) {
+        checkNotNull(keys);
+        checkNotNull(comparator);
+        List<Object> sorted = new ArrayList<>();
+        K previous = null;
+        for (K key : keys) {
+            checkNotNull(key);
+            if (previous != null && comparator.compare(previous, key) >= 0) {
+                throw new IllegalArgumentException("Keys aren't strictly ascending: " + previous + ", " + key);
+            }
+            sorted.add(key);
+            previous = key;
+        }
+        return new PersistentBTree<>(build(sorted.toArray()), comparator);
+    }
+
+    private static <K1> Node<K1> build(Object[] keys) {
+        if (keys.length <= MAX_WIDTH) return Node.leaf(keys);
+        int count = groups(keys.length);
+        Node<K1>[] level = (Node<K1>[]) new Node[count];
+        Object[] separators = new Object[count];
+        for (int g = 0, from = 0; g < count; g++) {
+            int to = from + groupSize(keys.length, count, g);
+            level[g] = Node.leaf(Arrays.copyOfRange(keys, from, to));
+            separators[g] = keys[from];
+            from = to;
+        }
+        while (level.length > 1) {
+            count = groups(level.length);
+            Node<K1>[] parents = (Node<K1>[]) new Node[count];
+            Object[] parentSeparators = new Object[count];
+            for (int g = 0, from = 0; g < count; g++) {
+                int to = from + groupSize(level.length, count, g);
+                parents[g] = Node.branch(Arrays.copyOfRange(separators, from + 1, to),
+                        Arrays.copyOfRange(level, from, to));
+                parentSeparators[g] = separators[from];
+                from = to;
+            }
+            level = parents;
+            separators = parentSeparators;
+        }
+        return level[0];
+    }
+
+    private static int groups(int count) {
+        return (count + MAX_WIDTH - 1) / MAX_WIDTH;
+    }
+
+    private static int groupSize(int count, int groups, int g) {
+        return count / groups + (g < count % groups ? 1 : 0);
+    }
+
+    public PersistentBTree<K> add(K x) {
+        Node<K> newRoot = insert(root, checkNotNull(x), comparator);
+        if (newRoot == root) return this;
+        if (newRoot.width() > MAX_WIDTH) {
+            newRoot = Node.branch(new Object[]{newRoot.middleKey()},
+                    (Node<K>[]) new Node[]{newRoot.lowerHalf(), newRoot.upperHalf()});
+        }
+        return new PersistentBTree<>(newRoot, comparator);
+    }
+
+    /**
+     * @return the same node if {@code x} is present, otherwise a copy that may be one entry wider than allowed
+     */
+    private static <K1> Node<K1> insert(Node<K1> node, K1 x, Comparator<K1> comparator) {
+        if (node.isLeaf()) {
+            int i = node.search(x, comparator);
+            return i >= 0 ? node : Node.leaf(Node.insert(node.keys, -i - 1, x));
+        }
+        int i = node.childIndex(x, comparator);
+        Node<K1> child = node.children[i];
+        Node<K1> newChild = insert(child, x, comparator);
+        if (newChild == child) return node;
+        return newChild.width() > MAX_WIDTH ? node.withSplitChild(i, newChild) : node.withChild(i, newChild);
+    }
+
+    public PersistentBTree<K> remove(K x) {
+        Node<K> newRoot = delete(root, checkNotNull(x), comparator);
+        if (newRoot == root) return this;
+        if (!newRoot.isLeaf() && newRoot.width() == 1) {
+            newRoot = newRoot.children[0];
+        }
+        return new PersistentBTree<>(newRoot, comparator);
+    }
+
+    /**
+     * @return the same node if {@code x} is absent, otherwise a copy that may be one entry narrower than allowed
+     */
+    private static <K1> Node<K1> delete(Node<K1> node, K1 x, Comparator<K1> comparator) {
+        if (node.isLeaf()) {
+            int i = node.search(x, comparator);
+            return i < 0 ? node : Node.leaf(Node.remove(node.keys, i));
+        }
+        int i = node.childIndex(x, comparator);
+        Node<K1> child = node.children[i];
+        Node<K1> newChild = delete(child, x, comparator);
+        if (newChild == child) return node;
+        return newChild.width() < MIN_WIDTH ? node.withUnderfullChild(i, newChild) : node.withChild(i, newChild);
+    }
+
+    public Pair<K, PersistentBTree<K>> pollMin() {
+        K min = peekMin();
+        return Pair.of(min, remove(min));
+    }
+
+    public boolean contains(K x) {
+        checkNotNull(x);
+        Node<K> node = root;
+        while (!node.isLeaf()) {
+            node = node.children[node.childIndex(x, comparator)];
+        }
+        return node.search(x, comparator) >= 0;
+    }
+
+    /**
+     * @return the greatest key less than or equal to {@code x}, {@code null} if there is none
+     */
+    public K floor(K x) {
+        return before(root, checkNotNull(x), true);
+    }
+
+    /**
+     * @return the least key greater than or equal to {@code x}, {@code null} if there is none
+     */
+    public K ceiling(K x) {
+        return after(root, checkNotNull(x), true);
+    }
+
+    /**
+     * @return the greatest key strictly less than {@code x}, {@code null} if there is none
+     */
+    public K lower(K x) {
+        return before(root, checkNotNull(x), false);
+    }
+
+    /**
+     * @return the least key strictly greater than {@code x}, {@code null} if there is none
+     */
+    public K higher(K x) {
+        return after(root, checkNotNull(x), false);
+    }
+
+    private K before(Node<K> node, K x, boolean inclusive) {
+        if (node.isLeaf()) {
+            int i = node.search(x, comparator);
+            int count = i >= 0 ? (inclusive ? i + 1 : i) : -i - 1;
+            return count == 0 ? null : node.key(count - 1);
+        }
+        int i = node.childIndex(x, comparator);
+        K key = before(node.children[i], x, inclusive);
+        return key != null || i == 0 ? key : max(node.children[i - 1]);
+    }
+
+    private K after(Node<K> node, K x, boolean inclusive) {
+        if (node.isLeaf()) {
+            int i = node.search(x, comparator);
+            int index = i >= 0 ? (inclusive ? i : i + 1) : -i - 1;
+            return index == node.keys.length ? null : node.key(index);
+        }
+        int i = node.childIndex(x, comparator);
+        K key = after(node.children[i], x, inclusive);
+        return key != null || i == node.children.length - 1 ? key : min(node.children[i + 1]);
+    }
+
+    /**
+     * Keys from {@code from} inclusive to {@code to} exclusive as a tree of its own. The range is copied into
+     * fresh full leaves, so it costs O(log n + k) for k keys in the range.
+     */
+    public PersistentBTree<K> subSet(K from, K to) {
+        return subSet(from, true, to, false);
+    }
+
+    public PersistentBTree<K> subSet(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        checkNotNull(from);
+        checkNotNull(to);
+        if (comparator.compare(from, to) > 0) {
+            throw new IllegalArgumentException("from > to: " + from + ", " + to);
+        }
+        return range(new NodeIterator<>(root, from, fromInclusive, comparator), to, toInclusive);
+    }
+
+    public PersistentBTree<K> headSet(K to) {
+        return headSet(to, false);
+    }
+
+    public PersistentBTree<K> headSet(K to, boolean inclusive) {
+        return range(new NodeIterator<>(root, false), checkNotNull(to), inclusive);
+    }
+
+    public PersistentBTree<K> tailSet(K from) {
+        return tailSet(from, true);
+    }
+
+    public PersistentBTree<K> tailSet(K from, boolean inclusive) {
+        return range(new NodeIterator<>(root, checkNotNull(from), inclusive, comparator), null, false);
+    }
+
+    /**
+     * Keys of {@code keys} up to {@code to}, or all of them if {@code to} is {@code null}.
+     */
+    private PersistentBTree<K> range(Iterator<K> keys, K to, boolean toInclusive) {
+        List<Object> range = new ArrayList<>();
+        while (keys.hasNext()) {
+            K key = keys.next();
+            if (to != null) {
+                int compare = comparator.compare(key, to);
+                if (compare > 0 || compare == 0 && !toInclusive) break;
+            }
+            range.add(key);
+        }
+        return withKeys(range);
+    }
+
+    private PersistentBTree<K> withKeys(List<Object> keys) {
+        return keys.size() == size() ? this : new PersistentBTree<>(build(keys.toArray()), comparator);
+    }
+
+    /**
+     * Keys of both trees. A tree much smaller than the other is added key by key in O(m log n), otherwise both are
+     * merged in O(n + m). Which of two equal keys is kept is unspecified.
+     */
+    public PersistentBTree<K> union(PersistentBTree<K> other) {
+        checkNotNull(other);
+        PersistentBTree<K> small = size() < other.size() ? this : other;
+        PersistentBTree<K> large = small == this ? other : this;
+        if (isSmall(small.size(), large.size())) {
+            PersistentBTree<K> result = large;
+            for (K key : small) {
+                result = result.add(key);
+            }
+            return result;
+        }
+        List<Object> keys = new ArrayList<>(size() + other.size());
+        Iterator<K> left = iterator(), right = other.iterator();
+        K l = next(left), r = next(right);
+        while (l != null || r != null) {
+            int compare = l == null ? 1 : r == null ? -1 : comparator.compare(l, r);
+            keys.add(compare <= 0 ? l : r);
+            if (compare <= 0) l = next(left);
+            if (compare >= 0) r = next(right);
+        }
+        return withKeys(keys);
+    }
+
+    /**
+     * Keys present in both trees, with the same cost as {@link #union(PersistentBTree)}.
+     */
+    public PersistentBTree<K> intersection(PersistentBTree<K> other) {
+        checkNotNull(other);
+        List<Object> keys = new ArrayList<>();
+        if (isSmall(other.size(), size())) {
+            for (K key : other) {
+                if (contains(key)) keys.add(key);
+            }
+        } else if (isSmall(size(), other.size())) {
+            for (K key : this) {
+                if (other.contains(key)) keys.add(key);
+            }
+        } else {
+            Iterator<K> left = iterator(), right = other.iterator();
+            K l = next(left), r = next(right);
+            while (l != null && r != null) {
+                int compare = comparator.compare(l, r);
+                if (compare == 0) keys.add(l);
+                if (compare <= 0) l = next(left);
+                if (compare >= 0) r = next(right);
+            }
+        }
+        return withKeys(keys);
+    }
+
+    /**
+     * Keys of this tree absent from {@code other}, with the same cost as {@link #union(PersistentBTree)}.
+     */
+    public PersistentBTree<K> difference(PersistentBTree<K> other) {
+        checkNotNull(other);
+        if (isSmall(other.size(), size())) {
+            PersistentBTree<K> result = this;
+            for (K key : other) {
+                result = result.remove(key);
+            }
+            return result;
+        }
+        List<Object> keys = new ArrayList<>();
+        if (isSmall(size(), other.size())) {
+            for (K key : this) {
+                if (!other.contains(key)) keys.add(key);
+            }
+            return withKeys(keys);
+        }
+        Iterator<K> left = iterator(), right = other.iterator();
+        K l = next(left), r = next(right);
+        while (l != null) {
+            int compare = r == null ? -1 : comparator.compare(l, r);
+            if (compare < 0) keys.add(l);
+            if (compare <= 0) l = next(left);
+            if (compare >= 0) r = next(right);
+        }
+        return withKeys(keys);
+    }
+
+    /**
+     * Whether m lookups in a tree of n keys are cheaper than walking both trees.
+     */
+    private static boolean isSmall(int m, int n) {
+        return (long) m * (32 - Integer.numberOfLeadingZeros(n)) < n;
+    }
+
+    private static <K1> K1 next(Iterator<K1> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    public int size() {
+        return root.size;
+    }
+
+    public boolean isEmpty() {
+        return root.size == 0;
+    }
+
+    /**
+     * @return number of keys strictly less than {@code x}
+     */
+    public int rank(K x) {
+        checkNotNull(x);
+        int rank = 0;
+        Node<K> node = root;
+        while (!node.isLeaf()) {
+            int i = node.childIndex(x, comparator);
+            for (int j = 0; j < i; j++) {
+                rank += node.children[j].size;
+            }
+            node = node.children[i];
+        }
+        int i = node.search(x, comparator);
+        return rank + (i >= 0 ? i : -i - 1);
+    }
+
+    /**
+     * @return key with the given zero-based position in the sorted order
+     */
+    public K select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        Node<K> node = root;
+        while (!node.isLeaf()) {
+            int i = 0;
+            while (index >= node.children[i].size) {
+                index -= node.children[i++].size;
+            }
+            node = node.children[i];
+        }
+        return node.key(index);
+    }
+
+    public K peekMin() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Empty tree");
+        }
+        return min(root);
+    }
+
+    public K peekMax() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Empty tree");
+        }
+        return max(root);
+    }
+
+    private static <K1> K1 min(Node<K1> node) {
+        while (!node.isLeaf()) {
+            node = node.children[0];
+        }
+        return node.key(0);
+    }
+
+    private static <K1> K1 max(Node<K1> node) {
+        while (!node.isLeaf()) {
+            node = node.children[node.children.length - 1];
+        }
+        return node.key(node.keys.length - 1);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new NodeIterator<>(root, false);
+    }
+
+    public Iterator<K> descendingIterator() {
+        return new NodeIterator<>(root, true);
+    }
+
+    @Override
+    public Spliterator<K> spliterator() {
+        Comparator<K> sortedBy = comparator == (Comparator) Comparator.naturalOrder() ? null : comparator;
+        return new Spliterators.AbstractSpliterator<K>(size(), Spliterator.ORDERED | Spliterator.DISTINCT
+                | Spliterator.SORTED | Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE) {
+            private final Iterator<K> iterator = iterator();
+
+            @Override
+            public boolean tryAdvance(Consumer<? super K> action) {
+                if (!iterator.hasNext()) return false;
+                action.accept(iterator.next());
+                return true;
+            }
+
+            @Override
+            public Comparator<? super K> getComparator() {
+                return sortedBy;
+            }
+        };
+    }
+
+    public Stream<K> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public List<K> asList() {
+        List<K> list = new ArrayList<>(size());
+        forEach(list::add);
+        return list;
+    }
+
+    Node<K> root() {
+        return root;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final PersistentBTree that = (PersistentBTree) o;
+        if (size() != that.size()) return false;
+        Iterator<?> left = iterator(), right = that.iterator();
+        while (left.hasNext()) {
+            if (!left.next().equals(right.next())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sum of the key hashes, as {@link Set#hashCode()}.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (K key : this) {
+            hash += key.hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentBTree{" +
+                "root=" + root +
+                '}';
+    }
+
+    static <V> V checkNotNull(V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values aren't allowed");
+        }
+        return value;
+    }
+}
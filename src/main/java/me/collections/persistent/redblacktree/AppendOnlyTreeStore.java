@@ -0,0 +1,387 @@
+package me.collections.persistent.redblacktree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.*;
+import static me.collections.persistent.redblacktree.Node.nil;
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.checkNotNull;
+
+/**
+ * Durable history of {@link PersistentRedBlackTree} versions in two append-only files. A commit writes only the nodes
+ * the store hasn't seen yet, which after an {@code add} or {@code remove} is the O(log n) copied path, and then
+ * appends the new root to the version log. Every committed version stays loadable.
+ * <p>
+ * Files of the store directory, little-endian:
+ * <pre>
+ * nodes.dat:    magic "PRBS" | format version | key width | reserved,
+ *               then records: left index (long) | right index (long) | color (byte) | key (key width bytes)
+ * versions.log: per version: root index (long) | size (int) | reserved (int)
+ * </pre>
+ * A record only points to records written before it, a missing child is {@code -1}. Nodes are forced to disk
+ * before the version entry that reaches them, so after a crash the log never points past the data. A torn trailing
+ * entry or record is dropped on open.
+ * <p>
+ * Stored nodes are remembered by identity, so a commit stops at the first subtree it has stored before. Entries of
+ * nodes that dropped out of the latest version are pruned once they outnumber the live ones. After reopening, load
+ * the latest version and update that tree, so that its nodes are known again. Otherwise the next commit stores the
+ * whole tree once more.
+ * <p>
+ * Space taken by dropped versions is reclaimed by {@link #compact(Path, int)}, which is optional. A store is used
+ * by one thread at a time.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("unchecked")
+public final class AppendOnlyTreeStore<K extends Comparable<K>> implements Closeable {
+
+    private static final int MAGIC = 0x50524253, FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16, ENTRY_BYTES = 16;
+    private static final int LEFT = 0, RIGHT = 8, COLOR = 16, KEY = 17;
+    private static final long NO_CHILD = -1;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16, PRUNE_SLACK = 1 << 16;
+    private static final long CHUNK_BYTES = 1L << 30;
+    private static final Node.Color[] COLORS = Node.Color.values();
+
+    private final KeyCodec<K> codec;
+    private final Comparator<K> comparator;
+    private final FileChannel nodes, versions;
+    private final int recordBytes;
+    private final ByteBuffer buffer;
+    private final List<long[]> roots = new ArrayList<>();
+    private final Map<Node<K>, Long> stored = new IdentityHashMap<>();
+    private long nodeCount;
+
+    private AppendOnlyTreeStore(KeyCodec<K> codec, Comparator<K> comparator, FileChannel nodes,
+                                FileChannel versions) {
+        this.codec = codec;
+        this.comparator = comparator;
+        this.nodes = nodes;
+        this.versions = versions;
+        this.recordBytes = KEY + codec.width();
+        this.buffer = ByteBuffer.allocate(Math.max(WRITE_BUFFER_BYTES, recordBytes)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public static <K extends Comparable<K>> AppendOnlyTreeStore<K> open(Path directory, KeyCodec<K> codec)
+            throws IOException {
+        return open(directory, codec, Comparator.naturalOrder());
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating it if needed.
+     *
+     * @param comparator the order of the stored trees
+     */
+    public static <K extends Comparable<K>> AppendOnlyTreeStore<K> open(Path directory, KeyCodec<K> codec,
+                                                                       Comparator<K> comparator) throws IOException {
+        checkNotNull(codec);
+        checkNotNull(comparator);
+        Files.createDirectories(checkNotNull(directory));
+        FileChannel nodes = FileChannel.open(directory.resolve("nodes.dat"), CREATE, READ, WRITE);
+        FileChannel versions;
+        try {
+            versions = FileChannel.open(directory.resolve("versions.log"), CREATE, READ, WRITE);
+        } catch (IOException e) {
+            nodes.close();
+            throw e;
+        }
+        AppendOnlyTreeStore<K> store = new AppendOnlyTreeStore<>(codec, comparator, nodes, versions);
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void recover() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (nodes.size() < HEADER_BYTES) {
+            header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(codec.width()).putInt(0).flip();
+            nodes.truncate(0);
+            writeFully(nodes, header, 0);
+            nodes.force(true);
+        } else {
+            readFully(nodes, header, 0);
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not a tree store");
+            }
+            int width = header.getInt();
+            if (width != codec.width()) {
+                throw new IOException("Keys are " + width + " bytes wide, the codec expects " + codec.width());
+            }
+        }
+        nodeCount = (nodes.size() - HEADER_BYTES) / recordBytes;
+        nodes.truncate(HEADER_BYTES + nodeCount * recordBytes);
+
+        long entries = versions.size() / ENTRY_BYTES;
+        versions.truncate(entries * ENTRY_BYTES);
+        ByteBuffer log = ByteBuffer.allocate((int) Math.min(entries * ENTRY_BYTES, WRITE_BUFFER_BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (long position = 0; position < entries * ENTRY_BYTES; ) {
+            log.clear();
+            log.limit((int) Math.min(log.capacity(), entries * ENTRY_BYTES - position));
+            readFully(versions, log, position);
+            position += log.limit();
+            while (log.hasRemaining()) {
+                long root = log.getLong();
+                int size = log.getInt();
+                log.getInt();
+                if (root >= nodeCount) {
+                    throw new IOException("Version " + roots.size() + " points past the data");
+                }
+                roots.add(new long[]{root, size});
+            }
+        }
+    }
+
+    /**
+     * Stores {@code tree} as the next version.
+     *
+     * @return number of the new version, versions count from zero
+     */
+    public int commit(PersistentRedBlackTree<K> tree) throws IOException {
+        checkNotNull(tree);
+        long committed = nodeCount;
+        long root;
+        try {
+            root = store(tree.root);
+            flush();
+            nodes.force(false);
+        } catch (IOException | RuntimeException e) {
+            // forget the records of the failed commit, so that the next one writes them again
+            buffer.clear();
+            nodeCount = committed;
+            stored.values().removeIf(index -> index >= committed);
+            try {
+                nodes.truncate(HEADER_BYTES + committed * recordBytes);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        entry.putLong(root).putInt(tree.size()).putInt(0).flip();
+        writeFully(versions, entry, (long) roots.size() * ENTRY_BYTES);
+        versions.force(false);
+        roots.add(new long[]{root, tree.size()});
+        if (stored.size() > 2 * tree.size() + PRUNE_SLACK) {
+            prune(tree.root);
+        }
+        return roots.size() - 1;
+    }
+
+    /**
+     * Writes the subtree in post-order down to the nodes already stored.
+     *
+     * @return index of its root record
+     */
+    private long store(Node<K> node) throws IOException {
+        if (node.isNil()) return NO_CHILD;
+        Long index = stored.get(node);
+        if (index != null) return index;
+        long left = store(node.left());
+        long right = store(node.right());
+        if (buffer.remaining() < recordBytes) {
+            flush();
+        }
+        int start = buffer.position();
+        buffer.putLong(left).putLong(right).put((byte) node.color().ordinal());
+        codec.write(node.key(), buffer);
+        if (buffer.position() - start != recordBytes) {
+            throw new IllegalStateException("Codec wrote " + (buffer.position() - start - KEY)
+                    + " bytes instead of " + codec.width());
+        }
+        stored.put(node, nodeCount);
+        return nodeCount++;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        writeFully(nodes, buffer, nodes.size());
+        buffer.clear();
+    }
+
+    /**
+     * Keeps only the entries of the nodes of {@code root}, all of which are stored.
+     */
+    private void prune(Node<K> root) {
+        Map<Node<K>, Long> live = new IdentityHashMap<>();
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        if (!root.isNil()) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<K> node = stack.pop();
+            live.put(node, stored.get(node));
+            if (!node.left().isNil()) stack.push(node.left());
+            if (!node.right().isNil()) stack.push(node.right());
+        }
+        stored.clear();
+        stored.putAll(live);
+    }
+
+    /**
+     * @return number of committed versions
+     */
+    public int versions() {
+        return roots.size();
+    }
+
+    /**
+     * @return number of node records in the store, over all versions
+     */
+    public long nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Reads a committed version back. Its nodes are remembered as stored, so committing an update of the loaded
+     * tree writes only the changed path.
+     */
+    public PersistentRedBlackTree<K> load(int version) throws IOException {
+        long[] root = roots.get(version);
+        ByteBuffer[] chunks = map(nodes, nodeCount);
+        Node<K> node = root[0] == NO_CHILD ? nil() : read(chunks, root[0], new HashMap<>());
+        return new PersistentRedBlackTree<>(node, comparator);
+    }
+
+    private Node<K> read(ByteBuffer[] chunks, long index, Map<Long, Node<K>> decoded) {
+        Node<K> node = decoded.get(index);
+        if (node != null) return node;
+        ByteBuffer chunk = chunk(chunks, index);
+        int offset = offset(index);
+        long left = chunk.getLong(offset + LEFT);
+        long right = chunk.getLong(offset + RIGHT);
+        node = new Node<>(codec.read(chunk, offset + KEY),
+                left == NO_CHILD ? nil() : read(chunks, left, decoded),
+                right == NO_CHILD ? nil() : read(chunks, right, decoded),
+                COLORS[chunk.get(offset + COLOR)]);
+        decoded.put(index, node);
+        stored.put(node, index);
+        return node;
+    }
+
+    /**
+     * Copies versions from {@code firstVersion} on into a new store in {@code directory}, record by record without
+     * decoding keys. Nodes shared between the kept versions stay shared. This store is left as is.
+     *
+     * @return the new store, its version numbers start from zero
+     */
+    public AppendOnlyTreeStore<K> compact(Path directory, int firstVersion) throws IOException {
+        if (firstVersion < 0 || firstVersion > roots.size()) {
+            throw new IndexOutOfBoundsException("Version: " + firstVersion + ", versions: " + roots.size());
+        }
+        AppendOnlyTreeStore<K> target = open(directory, codec, comparator);
+        try {
+            if (target.versions() > 0 || target.nodeCount() > 0) {
+                throw new IOException("Target store isn't empty: " + directory);
+            }
+            ByteBuffer[] chunks = map(nodes, nodeCount);
+            Map<Long, Long> forward = new HashMap<>();
+            for (long[] root : roots.subList(firstVersion, roots.size())) {
+                long newRoot = root[0] == NO_CHILD ? NO_CHILD : target.copy(chunks, root[0], forward);
+                target.roots.add(new long[]{newRoot, root[1]});
+            }
+            // same order as a commit: the entries may only reach the disk after the nodes they point to
+            target.flush();
+            target.nodes.force(false);
+            ByteBuffer log = ByteBuffer.allocate(WRITE_BUFFER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            long position = 0;
+            for (long[] root : target.roots) {
+                log.putLong(root[0]).putInt((int) root[1]).putInt(0);
+                if (!log.hasRemaining()) {
+                    log.flip();
+                    writeFully(target.versions, log, position);
+                    position += log.limit();
+                    log.clear();
+                }
+            }
+            log.flip();
+            writeFully(target.versions, log, position);
+            target.versions.force(false);
+            return target;
+        } catch (IOException | RuntimeException e) {
+            target.close();
+            throw e;
+        }
+    }
+
+    private long copy(ByteBuffer[] source, long index, Map<Long, Long> forward) throws IOException {
+        Long copied = forward.get(index);
+        if (copied != null) return copied;
+        ByteBuffer chunk = chunk(source, index);
+        int offset = offset(index);
+        long left = chunk.getLong(offset + LEFT);
+        long right = chunk.getLong(offset + RIGHT);
+        long newLeft = left == NO_CHILD ? NO_CHILD : copy(source, left, forward);
+        long newRight = right == NO_CHILD ? NO_CHILD : copy(source, right, forward);
+        if (buffer.remaining() < recordBytes) {
+            flush();
+        }
+        buffer.putLong(newLeft).putLong(newRight).put(chunk.get(offset + COLOR));
+        for (int i = KEY; i < recordBytes; i++) {
+            buffer.put(chunk.get(offset + i));
+        }
+        forward.put(index, nodeCount);
+        return nodeCount++;
+    }
+
+    /**
+     * Maps the first {@code count} records, each chunk holds a power-of-two number of them.
+     */
+    private ByteBuffer[] map(FileChannel channel, long count) throws IOException {
+        long chunkRecords = chunkRecords();
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((count + chunkRecords - 1) / chunkRecords)];
+        for (int i = 0; i < chunks.length; i++) {
+            long first = i * chunkRecords;
+            long records = Math.min(chunkRecords, count - first);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * recordBytes,
+                    records * recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    private long chunkRecords() {
+        return Long.highestOneBit(CHUNK_BYTES / recordBytes);
+    }
+
+    private ByteBuffer chunk(ByteBuffer[] chunks, long index) {
+        return chunks[(int) (index / chunkRecords())];
+    }
+
+    private int offset(long index) {
+        return (int) (index % chunkRecords()) * recordBytes;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("Unexpected end of file");
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            nodes.close();
+        } finally {
+            versions.close();
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package me.collections.persistent.redblacktree;
+
+import me.collections.util.Pair;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.checkNotNull;
+
+/**
+ * Leader side of tree replication: mutations of a {@link PersistentRedBlackTree} are applied here and recorded in a
+ * compact binary log, which {@link #flush()} hands out as batches for {@link Replica}s to replay.
+ * <p>
+ * Batch layout, little-endian:
+ * <pre>
+ * length of the rest (int) | first operation (long) | operation count (int) | checksum (int)
+ * operations: ADD (byte) key | REMOVE (byte) key | POLL_MIN (byte), keys encoded by a {@link KeyCodec}
+ * </pre>
+ * Only operations that changed the tree are logged, and they are numbered from zero. The checksum is the hash of
+ * the tree after the batch. It is the structural root hash every node caches, so it costs nothing to compute, and it
+ * also covers the shape of the tree. A replica replays the same operations with the same balancing, so from an
+ * identical start it reaches the same shape and the same checksum. A replica must start from the structure the
+ * leader had, for example both empty, or a version saved to and loaded from an {@link AppendOnlyTreeStore}.
+ * <p>
+ * Neither side is thread-safe.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ChangeLog<K extends Comparable<K>> {
+
+    static final byte ADD = 0, REMOVE = 1, POLL_MIN = 2;
+    private static final int LENGTH_BYTES = Integer.BYTES, HEADER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    // replicas size their read buffer by the length a batch declares, so a batch can't be larger than this
+    static final int MAX_BATCH_BYTES = 64 << 20;
+
+    private final KeyCodec<K> codec;
+    private PersistentRedBlackTree<K> tree;
+    private long sequence, first;
+    private int count;
+    private ByteBuffer pending;
+
+    public ChangeLog(PersistentRedBlackTree<K> initial, KeyCodec<K> codec) {
+        this.tree = checkNotNull(initial);
+        this.codec = checkNotNull(codec);
+        this.pending = newBatch(256);
+    }
+
+    /**
+     * @return the latest version, including operations not flushed yet
+     */
+    public PersistentRedBlackTree<K> tree() {
+        return tree;
+    }
+
+    /**
+     * A replica bootstrapped from {@link #tree()} right after a {@link #flush()} resumes from this number.
+     *
+     * @return number of operations logged so far
+     */
+    public long sequence() {
+        return sequence;
+    }
+
+    public boolean add(K x) {
+        PersistentRedBlackTree<K> updated = tree.add(checkNotNull(x));
+        if (updated == tree) return false;
+        log(ADD, x, updated);
+        return true;
+    }
+
+    public boolean remove(K x) {
+        PersistentRedBlackTree<K> updated = tree.remove(checkNotNull(x));
+        if (updated == tree) return false;
+        log(REMOVE, x, updated);
+        return true;
+    }
+
+    public K pollMin() {
+        if (tree.isEmpty()) {
+            throw new IllegalStateException("Empty tree");
+        }
+        Pair<K, PersistentRedBlackTree<K>> pair = tree.pollMin();
+        log(POLL_MIN, null, pair.getValue());
+        return pair.getKey();
+    }
+
+    private void log(byte operation, K key, PersistentRedBlackTree<K> updated) {
+        int bytes = 1 + (key == null ? 0 : codec.width());
+        if (pending.position() + bytes > MAX_BATCH_BYTES) {
+            throw new IllegalStateException("Batch is full, flush() before logging more");
+        }
+        if (pending.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.min(2 * pending.capacity() + bytes, MAX_BATCH_BYTES))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        int start = pending.position();
+        try {
+            pending.put(operation);
+            if (key != null) {
+                codec.write(key, pending);
+            }
+            if (pending.position() - start != bytes) {
+                throw new IllegalStateException("Codec wrote " + (pending.position() - start - 1)
+                        + " bytes instead of " + codec.width());
+            }
+        } catch (RuntimeException e) {
+            // a half written operation would make every replica reject the batch
+            pending.position(start);
+            throw e;
+        }
+        tree = updated;
+        sequence++;
+        count++;
+    }
+
+    /**
+     * Closes the current batch, which may be empty and then only carries the checksum. A batch holds at most
+     * {@value #MAX_BATCH_BYTES} bytes, logging more without a flush fails.
+     *
+     * @return the batch, ready to be read
+     */
+    public ByteBuffer flush() {
+        ByteBuffer batch = pending;
+        batch.putInt(0, batch.position() - LENGTH_BYTES)
+                .putLong(LENGTH_BYTES, first)
+                .putInt(LENGTH_BYTES + Long.BYTES, count)
+                .putInt(LENGTH_BYTES + Long.BYTES + Integer.BYTES, tree.hashCode())
+                .flip();
+        first = sequence;
+        count = 0;
+        pending = newBatch(Math.max(256, batch.capacity() / 4));
+        return batch;
+    }
+
+    /**
+     * Closes the current batch and writes it to {@code channel}.
+     */
+    public void flush(WritableByteChannel channel) throws IOException {
+        ByteBuffer batch = flush();
+        while (batch.hasRemaining()) {
+            checkNotNull(channel).write(batch);
+        }
+    }
+
+    private static ByteBuffer newBatch(int capacity) {
+        ByteBuffer batch = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        batch.position(LENGTH_BYTES + HEADER_BYTES);
+        return batch;
+    }
+
+    /**
+     * Follower side: replays batches in order and checks the checksum after each one. A batch that doesn't follow
+     * the previous one or doesn't end at the checksum of the leader is rejected as a whole, and the replica keeps
+     * the version it had.
+     */
+    public static final class Replica<K extends Comparable<K>> {
+        private final KeyCodec<K> codec;
+        private PersistentRedBlackTree<K> tree;
+        private long sequence;
+
+        public Replica(PersistentRedBlackTree<K> initial, KeyCodec<K> codec) {
+            this(initial, 0, codec);
+        }
+
+        /**
+         * @param sequence number of operations the leader had logged when it had {@code initial}
+         */
+        public Replica(PersistentRedBlackTree<K> initial, long sequence, KeyCodec<K> codec) {
+            if (sequence < 0) {
+                throw new IllegalArgumentException("Negative sequence: " + sequence);
+            }
+            this.tree = checkNotNull(initial);
+            this.sequence = sequence;
+            this.codec = checkNotNull(codec);
+        }
+
+        public PersistentRedBlackTree<K> tree() {
+            return tree;
+        }
+
+        /**
+         * @return number of operations applied so far
+         */
+        public long sequence() {
+            return sequence;
+        }
+
+        /**
+         * Applies a batch made by {@link ChangeLog#flush()}, starting at its position.
+         *
+         * @return the new version
+         * @throws IllegalStateException if the batch is out of order or the trees diverged
+         */
+        public PersistentRedBlackTree<K> apply(ByteBuffer batch) {
+            ByteBuffer in = batch.slice().order(ByteOrder.LITTLE_ENDIAN);
+            int length = in.getInt();
+            if (length < HEADER_BYTES || length > in.remaining()) {
+                throw new IllegalArgumentException("Malformed batch of " + length + " bytes");
+            }
+            // operations must end exactly where the length says, whatever the count claims
+            in.limit(LENGTH_BYTES + length);
+            long first = in.getLong();
+            int count = in.getInt();
+            int checksum = in.getInt();
+            if (count < 0) {
+                throw new IllegalArgumentException("Malformed batch of " + count + " operations");
+            }
+            if (first != sequence) {
+                throw new IllegalStateException("Expected operation " + sequence + ", the batch starts at " + first);
+            }
+            TransientRedBlackTree<K> editable = tree.asTransient();
+            for (int i = 0; i < count; i++) {
+                if (!in.hasRemaining()) {
+                    throw new IllegalArgumentException("Batch of " + length + " bytes ends before its " + count
+                            + " operations");
+                }
+                byte operation = in.get();
+                switch (operation) {
+                    case ADD:
+                        editable.add(readKey(in));
+                        break;
+                    case REMOVE:
+                        editable.remove(readKey(in));
+                        break;
+                    case POLL_MIN:
+                        editable.pollMin();
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown operation " + operation + " at " + (first + i));
+                }
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Batch of " + length + " bytes has " + in.remaining()
+                        + " bytes after its " + count + " operations");
+            }
+            PersistentRedBlackTree<K> updated = editable.persistent();
+            if (updated.hashCode() != checksum) {
+                throw new IllegalStateException("Diverged from the leader after operation " + (first + count - 1)
+                        + ": checksum " + updated.hashCode() + ", expected " + checksum);
+            }
+            batch.position(batch.position() + LENGTH_BYTES + length);
+            tree = updated;
+            sequence = first + count;
+            return tree;
+        }
+
+        /**
+         * Reads one batch from {@code channel} and applies it.
+         *
+         * @return the new version, {@code null} if the channel is at its end
+         */
+        public PersistentRedBlackTree<K> applyFrom(ReadableByteChannel channel) throws IOException {
+            ByteBuffer length = ByteBuffer.allocate(LENGTH_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (!readFully(channel, length, true)) return null;
+            int bytes = length.getInt(0);
+            if (bytes < HEADER_BYTES || bytes > MAX_BATCH_BYTES - LENGTH_BYTES) {
+                throw new IOException("Malformed batch of " + bytes + " bytes");
+            }
+            ByteBuffer batch = ByteBuffer.allocate(LENGTH_BYTES + bytes).order(ByteOrder.LITTLE_ENDIAN);
+            batch.putInt(bytes);
+            readFully(channel, batch, false);
+            batch.flip();
+            return apply(batch);
+        }
+
+        private K readKey(ByteBuffer in) {
+            if (in.remaining() < codec.width()) {
+                throw new IllegalArgumentException("Batch ends in the middle of a key");
+            }
+            K key = codec.read(in, in.position());
+            in.position(in.position() + codec.width());
+            return key;
+        }
+
+        /**
+         * @return false if the channel ended before the first byte and {@code endAllowed}
+         */
+        private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer, boolean endAllowed)
+                throws IOException {
+            while (buffer.hasRemaining()) {
+                if (checkNotNull(channel).read(buffer) < 0) {
+                    if (endAllowed && buffer.position() == 0) return false;
+                    throw new EOFException("Batch cut short");
+                }
+            }
+            return true;
+        }
+    }
+}
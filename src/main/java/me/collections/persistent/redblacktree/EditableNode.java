@@ -0,0 +1,70 @@
+package me.collections.persistent.redblacktree;
+
+/**
+ * Node created by a {@link TransientRedBlackTree}. It is updated in place while its edit session is open and
+ * behaves like any other immutable node once the session is over.
+ * <p>
+ * The mutable state lives here rather than in {@link Node}, so only nodes that were once owned by a session give
+ * up the final field guarantee, every other node stays safe to publish without synchronization.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+final class EditableNode<K> extends Node<K> {
+
+    private final Object edit;
+    private Node<K> left, right;
+    private int sizeAndColor;
+    private int hash;
+
+    EditableNode(Object edit, K key, Node<K> left, Node<K> right, Color color) {
+        super(key);
+        this.edit = edit;
+        update(left, right, color);
+    }
+
+    private void update(Node<K> left, Node<K> right, Color color) {
+        this.left = left;
+        this.right = right;
+        this.sizeAndColor = pack(1 + left.size() + right.size(), color);
+        this.hash = hash(key(), 0, left, right, color);
+    }
+
+    /**
+     * Owned nodes refresh their size and hash even if the links are the same, since a child may have been updated
+     * in place.
+     */
+    @Override
+    Node<K> with(Object edit, Node<K> left, Node<K> right, Color color) {
+        if (edit != null && this.edit == edit) {
+            update(left, right, color);
+            return this;
+        }
+        return super.with(edit, left, right, color);
+    }
+
+    @Override
+    Color color() {
+        return Color.VALUES[sizeAndColor & COLOR_MASK];
+    }
+
+    @Override
+    int size() {
+        return sizeAndColor >>> COLOR_BITS;
+    }
+
+    @Override
+    Node<K> left() {
+        return left;
+    }
+
+    @Override
+    Node<K> right() {
+        return right;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,211 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.checkNotNull;
+
+/**
+ * Flat-combining writer of a {@link SharedRedBlackTree}. A thread publishes its {@code add} or {@code remove} and
+ * then either becomes the combiner or waits. The combiner takes all published requests, applies them to a single
+ * {@link TransientRedBlackTree} and installs the result with one compare-and-set. A batch of m requests then costs
+ * one root copy and the nodes touched by the batch, where CAS writers racing on the same root would copy a path each
+ * and throw away all but one of them.
+ * <p>
+ * Requests are applied in the order they were published. Each one reports whether it changed the tree and the
+ * version that first contains its effect, a key rejected by the comparator fails only its own request. Plain CAS
+ * updates of the same holder may run alongside, the combiner then reapplies its batch on top of the version they
+ * installed.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("WeakerAccess")
+public final class FlatCombiningRedBlackTree<K extends Comparable<K>> {
+
+    // a combiner doesn't hand the tree over while requests keep coming, but takes this many batches at most
+    private static final int MAX_PASSES = 8;
+    // waiters are woken up by the combiner, the timeout only covers a request published just as it gave up
+    // a batch is usually applied in the time of a few yields, parking and waking up costs more than that
+    private static final int YIELDS = 16;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final SharedRedBlackTree<K> shared;
+    private final ConcurrentLinkedQueue<Update<K>> published = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock combiner = new ReentrantLock();
+
+    public FlatCombiningRedBlackTree() {
+        this(new SharedRedBlackTree<>());
+    }
+
+    public FlatCombiningRedBlackTree(SharedRedBlackTree<K> shared) {
+        this.shared = checkNotNull(shared);
+    }
+
+    /**
+     * @return the latest version, see {@link SharedRedBlackTree#get()}
+     */
+    public PersistentRedBlackTree<K> get() {
+        return shared.get();
+    }
+
+    /**
+     * Adds the key and waits until a version containing it is installed.
+     */
+    public Update<K> add(K x) {
+        return await(new Update<>(checkNotNull(x), true));
+    }
+
+    /**
+     * Removes the key and waits until a version without it is installed.
+     */
+    public Update<K> remove(K x) {
+        return await(new Update<>(checkNotNull(x), false));
+    }
+
+    /**
+     * Waits uninterruptibly, an interrupt that comes in meanwhile is kept in the interrupt status of the thread.
+     */
+    private Update<K> await(Update<K> update) {
+        published.add(update);
+        boolean interrupted = false;
+        for (int spins = 0; !update.done; spins++) {
+            if (combiner.tryLock()) {
+                try {
+                    for (int pass = 0; pass < MAX_PASSES && !published.isEmpty(); pass++) {
+                        combine();
+                    }
+                } finally {
+                    combiner.unlock();
+                }
+                // a request published while the lock was being released would wait for the timeout otherwise
+                Update<K> next = published.peek();
+                if (next != null) {
+                    LockSupport.unpark(next.waiter);
+                }
+            } else if (spins < YIELDS) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+                // park returns at once while the flag is set, so it's cleared and restored when done
+                interrupted |= Thread.interrupted();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable failure = update.failure;
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return update;
+    }
+
+    private void combine() {
+        List<Update<K>> batch = new ArrayList<>();
+        for (Update<K> update = published.poll(); update != null; update = published.poll()) {
+            batch.add(update);
+        }
+        try {
+            PersistentRedBlackTree<K> updated = apply(batch);
+            for (Update<K> update : batch) {
+                if (update.failure == null) {
+                    update.version = updated;
+                }
+            }
+        } catch (Throwable e) {
+            // nobody else will complete the drained requests, their waiters would wait forever
+            for (Update<K> update : batch) {
+                update.failure = e;
+            }
+        } finally {
+            for (Update<K> update : batch) {
+                update.complete();
+            }
+        }
+    }
+
+    /**
+     * Applies the batch on top of the latest version and installs the result.
+     *
+     * @return the installed version, the latest one if no request changed it
+     */
+    private PersistentRedBlackTree<K> apply(List<Update<K>> batch) {
+        PersistentRedBlackTree<K> tree, updated;
+        do {
+            tree = shared.get();
+            TransientRedBlackTree<K> editable = tree.asTransient();
+            boolean changed = false;
+            for (Update<K> update : batch) {
+                int size = editable.size();
+                // a key the comparator rejects fails its own request only, the comparator throws before the
+                // transient is touched, so the rest of the batch is applied as usual
+                update.failure = null;
+                try {
+                    if (update.add) {
+                        editable.add(update.key);
+                    } else {
+                        editable.remove(update.key);
+                    }
+                } catch (RuntimeException e) {
+                    update.failure = e;
+                }
+                update.changed = editable.size() != size;
+                changed |= update.changed;
+            }
+            updated = changed ? editable.persistent() : tree;
+        } while (updated != tree && !shared.compareAndSet(tree, updated));
+        return updated;
+    }
+
+    /**
+     * Published request, completed by the combiner that applied it.
+     */
+    public static final class Update<K extends Comparable<K>> {
+        private final K key;
+        private final boolean add;
+        private final Thread waiter = Thread.currentThread();
+        private boolean changed;
+        private PersistentRedBlackTree<K> version;
+        private Throwable failure;
+        // written last by the combiner, so the fields above are visible once it is seen
+        private volatile boolean done;
+
+        Update(K key, boolean add) {
+            this.key = key;
+            this.add = add;
+        }
+
+        private void complete() {
+            done = true;
+            if (waiter != Thread.currentThread()) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        public K key() {
+            return key;
+        }
+
+        /**
+         * @return false if the key was already there for an add, or absent for a remove
+         */
+        public boolean changed() {
+            return changed;
+        }
+
+        /**
+         * @return the installed version this request was applied to, it may contain other requests of the batch
+         */
+        public PersistentRedBlackTree<K> version() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package me.collections.persistent.redblacktree;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-width binary form of keys, used by {@link MappedRedBlackTree} snapshots. Fixed width keeps every node record
+ * the same size, so a node is found by its index without any lookup table.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+public interface KeyCodec<K> {
+
+    KeyCodec<Long> LONG = new KeyCodec<Long>() {
+        @Override
+        public int width() {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long key, ByteBuffer buffer) {
+            buffer.putLong(key);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer, int offset) {
+            return buffer.getLong(offset);
+        }
+    };
+
+    KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+        @Override
+        public int width() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer key, ByteBuffer buffer) {
+            buffer.putInt(key);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer, int offset) {
+            return buffer.getInt(offset);
+        }
+    };
+
+    /**
+     * @return number of bytes of every encoded key
+     */
+    int width();
+
+    /**
+     * Writes exactly {@link #width()} bytes at the position of {@code buffer}.
+     */
+    void write(K key, ByteBuffer buffer);
+
+    /**
+     * Reads a key at an absolute offset without moving the position of {@code buffer}.
+     */
+    K read(ByteBuffer buffer, int offset);
+}
@@ -0,0 +1,150 @@
+package me.collections.persistent.redblacktree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Off-heap storage of {@link OffHeapLongRedBlackTree} nodes. Nodes are fixed-size records in direct buffers of
+ * {@value #CHUNK_NODES} nodes each and are addressed by an {@code int} index, so a tree of any size is a handful of
+ * objects to the GC. Records are never written after allocation, which is what makes path copying work: a new version
+ * appends its copied path and points into the records of the old one.
+ * <p>
+ * Nothing is freed one record at a time. Dropped versions are reclaimed by {@link #compact(List)}, which copies the
+ * versions still in use into a fresh arena. The old arena stays readable until {@link #close()}, so readers of old
+ * versions can be drained first. Its memory goes back to the OS once the arena is garbage collected.
+ * <p>
+ * An arena is written by one thread at a time. Versions handed to other threads through a safe publication can be
+ * read concurrently with writes: the chunk directory has a fixed slot for every chunk the {@code int} index space can
+ * address, and each chunk is published through it with a volatile write, so a reader never sees a chunk half made.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+public final class LongArena {
+
+    static final int NIL = 0, DOUBLE_NIL = 1;
+    static final byte RED = 0, BLACK = 1, DOUBLE_BLACK = 2;
+
+    // key: long, left: int, right: int, color: byte, padded to keep records 4-byte aligned
+    static final int NODE_BYTES = 20;
+    private static final int KEY = 0, LEFT = 8, RIGHT = 12, COLOR = 16;
+
+    private static final int CHUNK_SHIFT = 16, CHUNK_NODES = 1 << CHUNK_SHIFT, CHUNK_MASK = CHUNK_NODES - 1;
+    private static final int MAX_CHUNKS = 1 << (Integer.SIZE - 1 - CHUNK_SHIFT);
+
+    private final AtomicReferenceArray<ByteBuffer> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private int count;
+    private volatile boolean closed;
+
+    public LongArena() {
+        allocate(0, NIL, NIL, BLACK);
+        allocate(0, NIL, NIL, DOUBLE_BLACK);
+    }
+
+    int allocate(long key, int left, int right, byte color) {
+        checkOpen();
+        int node = count;
+        if (node == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Arena is full");
+        }
+        int chunk = node >>> CHUNK_SHIFT;
+        ByteBuffer buffer = chunks.get(chunk);
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES).order(ByteOrder.nativeOrder());
+            chunks.set(chunk, buffer);
+        }
+        int offset = (node & CHUNK_MASK) * NODE_BYTES;
+        buffer.putLong(offset + KEY, key)
+                .putInt(offset + LEFT, left)
+                .putInt(offset + RIGHT, right)
+                .put(offset + COLOR, color);
+        count = node + 1;
+        return node;
+    }
+
+    private ByteBuffer chunk(int node) {
+        checkOpen();
+        return chunks.get(node >>> CHUNK_SHIFT);
+    }
+
+    long key(int node) {
+        return chunk(node).getLong((node & CHUNK_MASK) * NODE_BYTES + KEY);
+    }
+
+    int left(int node) {
+        return chunk(node).getInt((node & CHUNK_MASK) * NODE_BYTES + LEFT);
+    }
+
+    int right(int node) {
+        return chunk(node).getInt((node & CHUNK_MASK) * NODE_BYTES + RIGHT);
+    }
+
+    byte color(int node) {
+        return chunk(node).get((node & CHUNK_MASK) * NODE_BYTES + COLOR);
+    }
+
+    /**
+     * @return number of records allocated so far, reachable or not
+     */
+    public int nodeCount() {
+        return count;
+    }
+
+    /**
+     * @return off-heap memory held by the arena
+     */
+    public long reservedBytes() {
+        long reserved = 0;
+        for (int chunk = 0; chunk < MAX_CHUNKS && chunks.get(chunk) != null; chunk++) {
+            reserved += chunks.get(chunk).capacity();
+        }
+        return reserved;
+    }
+
+    /**
+     * Copies {@code versions}, which must all live in this arena, into a new arena. Nodes shared between versions
+     * stay shared, so the new arena holds exactly the nodes reachable from them. This arena is left as is.
+     *
+     * @return the same versions, in the same order, backed by the new arena
+     */
+    public List<OffHeapLongRedBlackTree> compact(List<OffHeapLongRedBlackTree> versions) {
+        checkOpen();
+        LongArena target = new LongArena();
+        int[] forward = new int[count];
+        List<OffHeapLongRedBlackTree> result = new ArrayList<>(versions.size());
+        for (OffHeapLongRedBlackTree version : versions) {
+            if (version.arena() != this) {
+                throw new IllegalArgumentException("Tree belongs to another arena");
+            }
+            result.add(new OffHeapLongRedBlackTree(target, copy(version.root, target, forward), version.size()));
+        }
+        return result;
+    }
+
+    private int copy(int node, LongArena target, int[] forward) {
+        if (node == NIL) return NIL;
+        if (forward[node] == 0) {
+            int left = copy(left(node), target, forward);
+            int right = copy(right(node), target, forward);
+            forward[node] = target.allocate(key(node), left, right, color(node));
+        }
+        return forward[node];
+    }
+
+    /**
+     * Closes the arena, trees of this arena fail with {@link IllegalStateException} afterwards. The buffers are
+     * reclaimed by the garbage collector once the arena and its trees are unreachable.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Arena is closed");
+        }
+    }
+}
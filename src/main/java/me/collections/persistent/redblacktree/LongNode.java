@@ -0,0 +1,105 @@
+package me.collections.persistent.redblacktree;
+
+/**
+ * Node of a {@link PersistentLongRedBlackTree}: the key is stored inline and the color is a byte, so a node takes
+ * 32 bytes with compressed oops, as much as a {@link Node} alone, which also points to a 16-byte boxed key.
+ * Subtree sizes and structural hashes aren't kept, the tree only tracks its total size.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+final class LongNode {
+
+    static final byte RED = 0, BLACK = 1, DOUBLE_BLACK = 2;
+
+    static final LongNode NIL = new LongNode(0, null, null, BLACK);
+    static final LongNode DOUBLE_NIL = new LongNode(0, null, null, DOUBLE_BLACK);
+
+    final long key;
+    final LongNode left, right;
+    final byte color;
+
+    LongNode(long key, LongNode left, LongNode right, byte color) {
+        this.key = key;
+        this.left = left;
+        this.right = right;
+        this.color = color;
+    }
+
+    boolean isNil() {
+        return this == NIL;
+    }
+
+    boolean isDoubleNil() {
+        return this == DOUBLE_NIL;
+    }
+
+    boolean isEmpty() {
+        return this == NIL || this == DOUBLE_NIL;
+    }
+
+    boolean isRed() {
+        return color == RED;
+    }
+
+    boolean isBlack() {
+        return color == BLACK;
+    }
+
+    boolean isBlackNode() {
+        return this != NIL && color == BLACK;
+    }
+
+    boolean isDoubleBlack() {
+        return color == DOUBLE_BLACK;
+    }
+
+    LongNode left() {
+        return this == NIL ? NIL : left;
+    }
+
+    LongNode right() {
+        return this == NIL ? NIL : right;
+    }
+
+    LongNode with(LongNode left, LongNode right, byte color) {
+        if (this.left == left && this.right == right && this.color == color) return this;
+        if (isNil()) throw new UnsupportedOperationException();
+        return new LongNode(key, left, right, color);
+    }
+
+    LongNode withLeft(LongNode left) {
+        return with(left, right, color);
+    }
+
+    LongNode withRight(LongNode right) {
+        return with(left, right, color);
+    }
+
+    LongNode withColor(byte color) {
+        return with(left, right, color);
+    }
+
+    LongNode blacken() {
+        return isRed() ? withColor(BLACK) : this;
+    }
+
+    LongNode redden() {
+        return !isNil() && isBlack() && left.isBlack() && right.isBlack() ? withColor(RED) : this;
+    }
+
+    LongNode demote() {
+        return isDoubleBlack() ? (isDoubleNil() ? NIL : withColor(BLACK)) : this;
+    }
+
+    @Override
+    public String toString() {
+        if (isNil()) return "NIL";
+        if (isDoubleNil()) return "DOUBLE_NIL";
+        return (color == RED ? "R" : color == BLACK ? "B" : "BB") + "{" +
+                "key=" + key +
+                ", left=" + left +
+                ", right=" + right +
+                '}';
+    }
+}
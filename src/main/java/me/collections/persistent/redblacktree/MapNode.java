@@ -0,0 +1,57 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Node of {@link PersistentTreeMap}. Balancing code only ever copies nodes through {@link #derive}, so the value
+ * travels with its key through every rotation.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+final class MapNode<K, V> extends Node<K> {
+
+    private final V value;
+
+    MapNode(K key, V value, Node<K> left, Node<K> right, Color color) {
+        super(key, Objects.hashCode(value), left, right, color);
+        this.value = value;
+    }
+
+    V value() {
+        return value;
+    }
+
+    MapNode<K, V> withValue(V value) {
+        return this.value == value ? this : new MapNode<>(key(), value, left(), right(), color());
+    }
+
+    Map.Entry<K, V> toEntry() {
+        return new AbstractMap.SimpleImmutableEntry<>(key(), value);
+    }
+
+    /**
+     * Maps have no transient mode, so map nodes are always copied whatever the edit session.
+     */
+    @Override
+    Node<K> derive(Object edit, Node<K> left, Node<K> right, Color color) {
+        return new MapNode<>(key(), value, left, right, color);
+    }
+
+    @Override
+    boolean payloadEquals(Node<K> node) {
+        return node instanceof MapNode && Objects.equals(value, ((MapNode) node).value);
+    }
+
+    @Override
+    public String toString() {
+        return color().name + "{" +
+                "key=" + key() +
+                ", value=" + value +
+                ", left=" + left() +
+                ", right=" + right() +
+                '}';
+    }
+}
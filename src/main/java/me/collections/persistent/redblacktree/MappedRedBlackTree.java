@@ -0,0 +1,356 @@
+package me.collections.persistent.redblacktree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static java.nio.file.StandardOpenOption.*;
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.checkNotNull;
+
+/**
+ * Read-only {@link PersistentRedBlackTree} snapshot answered straight from a memory-mapped file. Opening maps the file
+ * and reads its header, so it takes the same time for any size. Pages are loaded by the OS as lookups touch them,
+ * and no {@link Node} is ever created.
+ * <p>
+ * File layout, little-endian:
+ * <pre>
+ * header:  magic "PRBT" | version | key width | height | size (long) | padding up to {@value #HEADER_BYTES} bytes
+ * records: size nodes in post-order, each one is left index (int) | right index (int) | key (key width bytes)
+ * </pre>
+ * Children precede their parent, so the writer streams nodes in one pass and the root is the last record.
+ * A missing child is {@code -1}. Colors aren't stored, the tree is never rebalanced.
+ * <p>
+ * A single mapping is limited to 2 GB, so records are mapped in chunks of a power-of-two number of records.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+public final class MappedRedBlackTree<K extends Comparable<K>> implements Iterable<K> {
+
+    private static final int MAGIC = 0x50524254, VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    private static final int NO_CHILD = -1;
+    private static final int LEFT = 0, RIGHT = 4, KEY = 8;
+    private static final long DEFAULT_CHUNK_BYTES = 1L << 30;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final KeyCodec<K> codec;
+    private final Comparator<K> comparator;
+    private final ByteBuffer[] chunks;
+    private final int recordBytes, chunkShift, chunkMask;
+    private final int size, height;
+
+    private MappedRedBlackTree(KeyCodec<K> codec, Comparator<K> comparator, ByteBuffer[] chunks, int chunkShift,
+                               int size, int height) {
+        this.codec = codec;
+        this.comparator = comparator;
+        this.chunks = chunks;
+        this.recordBytes = KEY + codec.width();
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+        this.size = size;
+        this.height = height;
+    }
+
+    /**
+     * Writes {@code tree} to {@code file}, replacing it. Takes one pass over the nodes and a fixed-size buffer.
+     */
+    public static <K extends Comparable<K>> void write(PersistentRedBlackTree<K> tree, KeyCodec<K> codec, Path file)
+            throws IOException {
+        checkNotNull(tree);
+        checkNotNull(codec);
+        try (FileChannel channel = FileChannel.open(checkNotNull(file), CREATE, TRUNCATE_EXISTING, WRITE)) {
+            Writer<K> writer = new Writer<>(channel, codec);
+            writer.buffer.position(HEADER_BYTES);
+            writer.write(tree.root, 1);
+            writer.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC).putInt(VERSION).putInt(codec.width()).putInt(writer.height).putLong(writer.count);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    public static <K extends Comparable<K>> MappedRedBlackTree<K> open(Path file, KeyCodec<K> codec)
+            throws IOException {
+        return open(file, codec, Comparator.naturalOrder());
+    }
+
+    /**
+     * @param comparator the order the snapshotted tree was built with
+     */
+    public static <K extends Comparable<K>> MappedRedBlackTree<K> open(Path file, KeyCodec<K> codec,
+                                                                      Comparator<K> comparator) throws IOException {
+        return open(file, codec, comparator, DEFAULT_CHUNK_BYTES);
+    }
+
+    static <K extends Comparable<K>> MappedRedBlackTree<K> open(Path file, KeyCodec<K> codec,
+                                                               Comparator<K> comparator, long chunkBytes)
+            throws IOException {
+        checkNotNull(codec);
+        checkNotNull(comparator);
+        try (FileChannel channel = FileChannel.open(checkNotNull(file), READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Not a tree snapshot: " + file);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a tree snapshot: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            int width = header.getInt();
+            if (width != codec.width()) {
+                throw new IOException("Keys are " + width + " bytes wide, the codec expects " + codec.width());
+            }
+            int height = header.getInt();
+            long size = header.getLong();
+            int recordBytes = KEY + width;
+            if (size < 0 || size > Integer.MAX_VALUE || channel.size() != HEADER_BYTES + size * recordBytes) {
+                throw new IOException("Corrupted snapshot of " + size + " keys, " + channel.size() + " bytes: " + file);
+            }
+            // iterators size their stacks by the height, so it has to be one a tree of this size can have
+            if (height < 32 - Integer.numberOfLeadingZeros((int) size) || height > NodeIterator.maxHeight((int) size)) {
+                throw new IOException("Corrupted snapshot of " + size + " keys, " + height + " levels: " + file);
+            }
+
+            int chunkShift = 31 - Integer.numberOfLeadingZeros((int) Math.max(1, chunkBytes / recordBytes));
+            int chunkRecords = 1 << chunkShift;
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((size + chunkRecords - 1) >> chunkShift)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i << chunkShift;
+                long records = Math.min(chunkRecords, size - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + first * recordBytes,
+                        records * recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedRedBlackTree<>(codec, comparator, chunks, chunkShift, (int) size, height);
+        }
+    }
+
+    private int root() {
+        return size - 1;
+    }
+
+    private int left(int node) {
+        return child(node, chunks[node >>> chunkShift].getInt((node & chunkMask) * recordBytes + LEFT));
+    }
+
+    private int right(int node) {
+        return child(node, chunks[node >>> chunkShift].getInt((node & chunkMask) * recordBytes + RIGHT));
+    }
+
+    /**
+     * Children are written before their parent, so every step down goes to a smaller index and a corrupted file can
+     * neither point outside the records nor make a lookup loop.
+     */
+    private static int child(int node, int child) {
+        if (child < NO_CHILD || child >= node) {
+            throw new IllegalStateException("Corrupted snapshot, node " + node + " points to " + child);
+        }
+        return child;
+    }
+
+    private K key(int node) {
+        return codec.read(chunks[node >>> chunkShift], (node & chunkMask) * recordBytes + KEY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(K x) {
+        checkNotNull(x);
+        int node = root();
+        while (node != NO_CHILD) {
+            int compare = comparator.compare(x, key(node));
+            if (compare == 0) return true;
+            node = compare < 0 ? left(node) : right(node);
+        }
+        return false;
+    }
+
+    public K peekMin() {
+        if (size == 0) {
+            throw new IllegalStateException("Empty tree");
+        }
+        int node = root();
+        for (int left = left(node); left != NO_CHILD; left = left(node)) {
+            node = left;
+        }
+        return key(node);
+    }
+
+    public K peekMax() {
+        if (size == 0) {
+            throw new IllegalStateException("Empty tree");
+        }
+        int node = root();
+        for (int right = right(node); right != NO_CHILD; right = right(node)) {
+            node = right;
+        }
+        return key(node);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new RangeIterator(null, false, null, false);
+    }
+
+    /**
+     * Keys between {@code from} and {@code to} in ascending order. Finding the first one costs O(log n), every next
+     * one O(1) amortized.
+     */
+    public Iterator<K> range(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        return new RangeIterator(checkNotNull(from), fromInclusive, checkNotNull(to), toInclusive);
+    }
+
+    /**
+     * @return the snapshot as a regular tree, built in linear time without comparing keys twice
+     */
+    public PersistentRedBlackTree<K> toTree() {
+        return PersistentRedBlackTree.fromSorted(this, comparator);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedRedBlackTree{" +
+                "size=" + size +
+                ", height=" + height +
+                '}';
+    }
+
+    /**
+     * In-order walk over node indexes, optionally bounded on both sides. The next key is read ahead, so the upper
+     * bound is checked once per key.
+     */
+    private final class RangeIterator implements Iterator<K> {
+        private final int[] stack = new int[height];
+        private final K to;
+        private final boolean toInclusive;
+        private int depth;
+        private K next;
+
+        RangeIterator(K from, boolean fromInclusive, K to, boolean toInclusive) {
+            this.to = to;
+            this.toInclusive = toInclusive;
+            int node = root();
+            while (node != NO_CHILD) {
+                int compare = from == null ? 1 : comparator.compare(key(node), from);
+                if (compare > 0 || compare == 0 && fromInclusive) {
+                    push(node);
+                    node = left(node);
+                } else {
+                    node = right(node);
+                }
+            }
+            advance();
+        }
+
+        private void advance() {
+            if (depth == 0) {
+                next = null;
+                return;
+            }
+            int node = stack[--depth];
+            for (int child = right(node); child != NO_CHILD; child = left(child)) {
+                push(child);
+            }
+            K key = key(node);
+            if (to != null) {
+                int compare = comparator.compare(key, to);
+                if (compare > 0 || compare == 0 && !toInclusive) {
+                    depth = 0;
+                    key = null;
+                }
+            }
+            next = key;
+        }
+
+        private void push(int node) {
+            if (depth == stack.length) {
+                throw new IllegalStateException("Corrupted snapshot, deeper than its " + height + " levels");
+            }
+            stack[depth++] = node;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public K next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            K key = next;
+            advance();
+            return key;
+        }
+    }
+
+    /**
+     * Post-order writer, nodes get consecutive indexes in the order they are written.
+     */
+    private static final class Writer<K> {
+        private final FileChannel channel;
+        private final KeyCodec<K> codec;
+        private final ByteBuffer buffer;
+        private final int recordBytes;
+        private int count;
+        private int height;
+
+        Writer(FileChannel channel, KeyCodec<K> codec) {
+            this.channel = channel;
+            this.codec = codec;
+            this.recordBytes = KEY + codec.width();
+            this.buffer = ByteBuffer.allocate(Math.max(WRITE_BUFFER_BYTES, HEADER_BYTES + recordBytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * @return index of the written node, {@link #NO_CHILD} for an empty subtree
+         */
+        int write(Node<K> node, int depth) throws IOException {
+            if (node.isNil()) return NO_CHILD;
+            height = Math.max(height, depth);
+            int left = write(node.left(), depth + 1);
+            int right = write(node.right(), depth + 1);
+            if (buffer.remaining() < recordBytes) {
+                flush();
+            }
+            int start = buffer.position();
+            buffer.putInt(left).putInt(right);
+            codec.write(node.key(), buffer);
+            if (buffer.position() - start != recordBytes) {
+                throw new IllegalStateException("Codec wrote " + (buffer.position() - start - KEY)
+                        + " bytes instead of " + codec.width());
+            }
+            return count++;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.*;
+
+/**
+ * Unmodifiable {@link NavigableSet} over a {@link PersistentRedBlackTree}, see
+ * {@link PersistentRedBlackTree#asNavigableSet()}. The tree never changes, so the view is a snapshot that can be
+ * shared freely. Lookups go straight to the nodes, range views are split-based trees of their own and the
+ * descending view only flips the direction of every call.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("unchecked")
+final class NavigableSetView<K extends Comparable<K>> extends AbstractSet<K> implements NavigableSet<K> {
+
+    private final PersistentRedBlackTree<K> tree;
+    private final boolean descending;
+
+    NavigableSetView(PersistentRedBlackTree<K> tree, boolean descending) {
+        this.tree = tree;
+        this.descending = descending;
+    }
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return tree.contains((K) Objects.requireNonNull(o));
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return descending ? tree.descendingIterator() : tree.iterator();
+    }
+
+    @Override
+    public Iterator<K> descendingIterator() {
+        return descending ? tree.iterator() : tree.descendingIterator();
+    }
+
+    @Override
+    public Spliterator<K> spliterator() {
+        return descending ? NavigableSet.super.spliterator() : tree.spliterator();
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        Comparator<K> comparator = tree.comparator();
+        if (comparator == (Comparator) Comparator.naturalOrder()) {
+            return descending ? Collections.reverseOrder() : null;
+        }
+        return descending ? Collections.reverseOrder(comparator) : comparator;
+    }
+
+    @Override
+    public K first() {
+        checkNotEmpty();
+        return descending ? tree.peekMax() : tree.peekMin();
+    }
+
+    @Override
+    public K last() {
+        checkNotEmpty();
+        return descending ? tree.peekMin() : tree.peekMax();
+    }
+
+    @Override
+    public K lower(K k) {
+        return descending ? tree.higher(Objects.requireNonNull(k)) : tree.lower(Objects.requireNonNull(k));
+    }
+
+    @Override
+    public K floor(K k) {
+        return descending ? tree.ceiling(Objects.requireNonNull(k)) : tree.floor(Objects.requireNonNull(k));
+    }
+
+    @Override
+    public K ceiling(K k) {
+        return descending ? tree.floor(Objects.requireNonNull(k)) : tree.ceiling(Objects.requireNonNull(k));
+    }
+
+    @Override
+    public K higher(K k) {
+        return descending ? tree.lower(Objects.requireNonNull(k)) : tree.higher(Objects.requireNonNull(k));
+    }
+
+    @Override
+    public boolean add(K k) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public K pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public K pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public NavigableSet<K> descendingSet() {
+        return new NavigableSetView<>(tree, !descending);
+    }
+
+    @Override
+    public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+        Objects.requireNonNull(fromElement);
+        Objects.requireNonNull(toElement);
+        PersistentRedBlackTree<K> subSet = descending
+                ? tree.subSet(toElement, toInclusive, fromElement, fromInclusive)
+                : tree.subSet(fromElement, fromInclusive, toElement, toInclusive);
+        return new NavigableSetView<>(subSet, descending);
+    }
+
+    @Override
+    public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+        Objects.requireNonNull(toElement);
+        PersistentRedBlackTree<K> headSet = descending
+                ? tree.tailSet(toElement, inclusive)
+                : tree.headSet(toElement, inclusive);
+        return new NavigableSetView<>(headSet, descending);
+    }
+
+    @Override
+    public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+        Objects.requireNonNull(fromElement);
+        PersistentRedBlackTree<K> tailSet = descending
+                ? tree.headSet(fromElement, inclusive)
+                : tree.tailSet(fromElement, inclusive);
+        return new NavigableSetView<>(tailSet, descending);
+    }
+
+    @Override
+    public SortedSet<K> subSet(K fromElement, K toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<K> headSet(K toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<K> tailSet(K fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    private void checkNotEmpty() {
+        if (tree.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+    }
+}
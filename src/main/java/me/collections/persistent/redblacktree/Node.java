@@ -2,7 +2,6 @@ package me.collections.persistent.redblacktree;
 
 import java.util.Objects;
 
-import static me.collections.persistent.redblacktree.Node.Builder.copy;
 import static me.collections.persistent.redblacktree.Node.Color.*;
 
 /**
@@ -10,11 +9,13 @@ import static me.collections.persistent.redblacktree.Node.Color.*;
  * @since 07/12/2017
  */
 @SuppressWarnings("unchecked")
-final class Node<K> {
+class Node<K> {
 
     enum Color {
         RED("R"), BLACK("B"), DOUBLE_BLACK("BB");
 
+        static final Color[] VALUES = values();
+
         final String name;
 
         Color(String name) {
@@ -22,18 +23,59 @@ final class Node<K> {
         }
     }
 
+    static final int COLOR_BITS = 2, COLOR_MASK = (1 << COLOR_BITS) - 1;
+
+    // largest subtree size that fits next to the color bits
+    private static final int MAX_SIZE = -1 >>> COLOR_BITS;
+
     private static final Node NIL = new Node(null, null, null, BLACK);
     private static final Node DOUBLE_NIL = new Node(null, null, null, DOUBLE_BLACK);
 
     private final K key;
     private final Node left, right;
-    private final Color color;
+    // size << COLOR_BITS | color ordinal: dropping the Color reference brings the node from 40 to 32 bytes
+    private final int sizeAndColor;
+    private final int hash;
 
     Node(K key, Node left, Node right, Color color) {
+        this(key, 0, left, right, color);
+    }
+
+    /**
+     * @param payloadHash hash of whatever a subclass stores next to the key, it becomes part of the structural hash
+     */
+    Node(K key, int payloadHash, Node left, Node right, Color color) {
         this.key = key;
         this.left = left;
         this.right = right;
-        this.color = color;
+        if (left == null) {
+            this.sizeAndColor = pack(0, color);
+            this.hash = color.ordinal();
+        } else {
+            this.sizeAndColor = pack(1 + left.size() + right.size(), color);
+            this.hash = hash(key, payloadHash, left, right, color);
+        }
+    }
+
+    /**
+     * For subclasses that keep links, size, color and hash themselves and override their accessors.
+     */
+    Node(K key) {
+        this.key = key;
+        this.left = null;
+        this.right = null;
+        this.sizeAndColor = 0;
+        this.hash = 0;
+    }
+
+    static int pack(int size, Color color) {
+        if (size > MAX_SIZE) throw new IllegalStateException("Tree is too large: " + size);
+        return size << COLOR_BITS | color.ordinal();
+    }
+
+    static int hash(Object key, int payloadHash, Node left, Node right, Color color) {
+        return ((((31 + Objects.hashCode(key)) * 31 + payloadHash) * 31 + left.hashCode()) * 31 + right.hashCode())
+                * 31 + color.ordinal();
     }
 
     boolean isNil() {
@@ -45,11 +87,11 @@ final class Node<K> {
     }
 
     boolean isRed() {
-        return this.color == RED;
+        return color() == RED;
     }
 
     boolean isBlack() {
-        return this.color == BLACK;
+        return color() == BLACK;
     }
 
     boolean isBlackNode() {
@@ -57,13 +99,24 @@ final class Node<K> {
     }
 
     boolean isDoubleBlack() {
-        return this.color == DOUBLE_BLACK;
+        return color() == DOUBLE_BLACK;
     }
 
     K key() {
         return key;
     }
 
+    Color color() {
+        return Color.VALUES[sizeAndColor & COLOR_MASK];
+    }
+
+    /**
+     * Number of keys in the subtree rooted at this node, sentinels have none.
+     */
+    int size() {
+        return sizeAndColor >>> COLOR_BITS;
+    }
+
     Node<K> left() {
         return this == nil() ? nil() : left;
     }
@@ -72,42 +125,122 @@ final class Node<K> {
         return this == nil() ? nil() : right;
     }
 
+    Node<K> with(Node<K> left, Node<K> right, Color color) {
+        return with(null, left, right, color);
+    }
+
+    /**
+     * Path-copying primitive. A node owned by {@code edit} is updated in place, see {@link EditableNode}, any other
+     * node stays untouched: it is returned as is when nothing changes, otherwise a fresh node with the same key is
+     * created for {@code edit}. A {@code null} edit never matches, which gives plain persistent copying.
+     * <p>
+     * Nodes not owned by the session never point to owned ones, so for them equal links mean equal state.
+     */
+    Node<K> with(Object edit, Node<K> left, Node<K> right, Color color) {
+        if (isNil()) throw new UnsupportedOperationException();
+        if (left() == left && right() == right && color() == color) return this;
+        return derive(edit, left, right, color);
+    }
+
+    /**
+     * Copy of this entry with other links, subclasses carrying more than a key override it to keep their payload.
+     */
+    Node<K> derive(Object edit, Node<K> left, Node<K> right, Color color) {
+        return edit == null ? new Node<>(key, left, right, color) : new EditableNode<>(edit, key, left, right, color);
+    }
+
+    /**
+     * Whatever a subclass keeps next to the key is equal to the one of the other node. A plain node has nothing to
+     * compare, {@link #equals} asks both nodes, so a subclass alone rejects nodes without its payload.
+     */
+    boolean payloadEquals(Node<K> node) {
+        return true;
+    }
+
+    Node<K> withLeft(Node<K> left) {
+        return with(null, left, right(), color());
+    }
+
+    Node<K> withLeft(Object edit, Node<K> left) {
+        return with(edit, left, right(), color());
+    }
+
+    Node<K> withRight(Node<K> right) {
+        return with(null, left(), right, color());
+    }
+
+    Node<K> withRight(Object edit, Node<K> right) {
+        return with(edit, left(), right, color());
+    }
+
+    Node<K> withColor(Color color) {
+        return with(null, left(), right(), color);
+    }
+
+    Node<K> withColor(Object edit, Color color) {
+        return with(edit, left(), right(), color);
+    }
+
     Node<K> blacken() {
-        return this.isRed() ? copy(this).black().build() : this;
+        return blacken(null);
+    }
+
+    Node<K> blacken(Object edit) {
+        return this.isRed() ? withColor(edit, BLACK) : this;
     }
 
     Node<K> redden() {
-        return !isNil() && isBlack() && left.isBlack() && right.isBlack() ? copy(this).red().build() : this;
+        return redden(null);
+    }
+
+    Node<K> redden(Object edit) {
+        return !isNil() && isBlack() && left().isBlack() && right().isBlack() ? withColor(edit, RED) : this;
     }
 
     Node<K> demote() {
-        return isDoubleBlack() ? (isDoubleNil() ? nil() : copy(this).black().build()) : this;
+        return demote(null);
+    }
+
+    Node<K> demote(Object edit) {
+        return isDoubleBlack() ? (isDoubleNil() ? nil() : withColor(edit, BLACK)) : this;
     }
 
+    /**
+     * Structural equality. Cached hashes and sizes reject most mismatches at once, and subtrees shared between
+     * versions are matched by reference without being walked.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Node)) return false;
         final Node node = (Node) o;
-        return Objects.equals(key, node.key) &&
-                Objects.equals(left, node.left) &&
-                Objects.equals(right, node.right) &&
-                color == node.color;
+        return hashCode() == node.hashCode() &&
+                size() == node.size() &&
+                color() == node.color() &&
+                Objects.equals(key, node.key) &&
+                payloadEquals(node) &&
+                node.payloadEquals(this) &&
+                Objects.equals(left(), node.left()) &&
+                Objects.equals(right(), node.right());
     }
 
+    /**
+     * Computed once from the children hashes at construction. Colors contribute their ordinal, so the value is
+     * stable across JVM runs whenever the key hashes are.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(key, left, right, color);
+        return hash;
     }
 
     @Override
     public String toString() {
         if (this.isNil()) return "NIL";
         if (this.isDoubleNil()) return "DOUBLE_NIL";
-        return color.name + "{" +
+        return color().name + "{" +
                 "key=" + key +
-                ", left=" + left +
-                ", right=" + right +
+                ", left=" + left() +
+                ", right=" + right() +
                 '}';
     }
 
@@ -126,7 +259,7 @@ final class Node<K> {
 
         static <K1> Builder<K1> copy(Node<K1> node) {
             if (node.isNil()) throw new UnsupportedOperationException();
-            return new Builder<K1>().key(node.key).left(node.left).right(node.right).color(node.color);
+            return new Builder<K1>().key(node.key).left(node.left()).right(node.right()).color(node.color());
         }
 
         static <K1> Builder<K1> black(K1 key) {
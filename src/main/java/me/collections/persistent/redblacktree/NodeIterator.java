@@ -0,0 +1,67 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy in-order iterator, ascending or descending. Keeps only the spine of the unvisited part of the tree that
+ * leads to the next key, so its state is bounded by the tree height.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("unchecked")
+final class NodeIterator<K> implements Iterator<K> {
+
+    private final boolean descending;
+    private Node<K>[] stack;
+    private int depth;
+
+    NodeIterator(Node<K> root) {
+        this(root, false);
+    }
+
+    NodeIterator(Node<K> root, boolean descending) {
+        this.descending = descending;
+        this.stack = new Node[maxHeight(root.size())];
+        pushSpine(root);
+    }
+
+    /**
+     * Red-black tree of n keys is at most 2 * log2(n + 1) high, one extra slot covers a red root.
+     */
+    static int maxHeight(int size) {
+        return 2 * (32 - Integer.numberOfLeadingZeros(size + 1)) + 1;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return depth > 0;
+    }
+
+    @Override
+    public K next() {
+        return nextNode().key();
+    }
+
+    Node<K> nextNode() {
+        if (depth == 0) {
+            throw new NoSuchElementException();
+        }
+        Node<K> node = stack[--depth];
+        stack[depth] = null;
+        pushSpine(descending ? node.left() : node.right());
+        return node;
+    }
+
+    private void pushSpine(Node<K> node) {
+        while (!node.isNil() && !node.isDoubleNil()) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth++] = node;
+            node = descending ? node.right() : node.left();
+        }
+    }
+}
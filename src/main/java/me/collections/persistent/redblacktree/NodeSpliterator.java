@@ -0,0 +1,97 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static me.collections.persistent.redblacktree.Node.nil;
+
+/**
+ * Spliterator over a subtree, optionally cut to the root key and one of its sides. Splitting is only possible before
+ * the traversal starts: the first split hands the left subtree off, the next one hands the root key off and moves on
+ * to the right subtree, which then splits the same way.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+final class NodeSpliterator<K> implements Spliterator<K> {
+
+    private static final int CHARACTERISTICS = ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+
+    private final Comparator<K> comparator;
+    private Node<K> node;
+    private boolean includeLeft, includeRight;
+    private long remaining;
+
+    private NodeIterator<K> iterator;
+    private boolean rootConsumed;
+
+    NodeSpliterator(Node<K> root, Comparator<K> comparator) {
+        this(root, comparator, true, true);
+    }
+
+    private NodeSpliterator(Node<K> node, Comparator<K> comparator, boolean includeLeft, boolean includeRight) {
+        this.comparator = comparator;
+        reset(node, includeLeft, includeRight);
+    }
+
+    private void reset(Node<K> node, boolean includeLeft, boolean includeRight) {
+        this.node = node;
+        this.includeLeft = includeLeft;
+        this.includeRight = includeRight;
+        this.remaining = node.isNil() || node.isDoubleNil() ? 0
+                : (includeLeft ? node.left().size() : 0) + 1 + (includeRight ? node.right().size() : 0);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super K> action) {
+        if (remaining == 0) return false;
+        if (iterator == null) {
+            iterator = new NodeIterator<>(includeLeft ? node.left() : nil());
+        }
+        K key;
+        if (iterator.hasNext()) {
+            key = iterator.next();
+        } else if (!rootConsumed) {
+            rootConsumed = true;
+            iterator = new NodeIterator<>(includeRight ? node.right() : nil());
+            key = node.key();
+        } else {
+            return false;
+        }
+        remaining--;
+        action.accept(key);
+        return true;
+    }
+
+    @Override
+    public Spliterator<K> trySplit() {
+        if (iterator != null || remaining <= 1) return null;
+        if (includeLeft && node.left().size() > 0) {
+            NodeSpliterator<K> prefix = new NodeSpliterator<>(node.left(), comparator);
+            reset(node, false, includeRight);
+            return prefix;
+        }
+        if (includeRight && node.right().size() > 0) {
+            NodeSpliterator<K> prefix = new NodeSpliterator<>(node, comparator, false, false);
+            reset(node.right(), true, true);
+            return prefix;
+        }
+        return null;
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    @Override
+    public Comparator<? super K> getComparator() {
+        return comparator == (Comparator) Comparator.naturalOrder() ? null : comparator;
+    }
+}
@@ -0,0 +1,437 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static me.collections.persistent.redblacktree.LongArena.*;
+
+/**
+ * {@link PersistentLongRedBlackTree} whose nodes live in a {@link LongArena} instead of the heap. Balancing and the
+ * set semantics are the same, a version is an arena, a root index and a size. Every update appends its copied path
+ * to the arena, see {@link LongArena#compact(java.util.List)} for reclaiming the versions that are no longer used.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+public final class OffHeapLongRedBlackTree {
+
+    private final LongArena arena;
+    final int root;
+    private final int size;
+
+    public OffHeapLongRedBlackTree(LongArena arena) {
+        this(arena, NIL, 0);
+    }
+
+    OffHeapLongRedBlackTree(LongArena arena, int root, int size) {
+        this.arena = arena;
+        this.root = root;
+        this.size = size;
+    }
+
+    public LongArena arena() {
+        return arena;
+    }
+
+    public OffHeapLongRedBlackTree add(long x) {
+        arena.checkOpen();
+        SearchPath path = SearchPath.get();
+        int node = root;
+        while (node != NIL) {
+            long key = arena.key(node);
+            if (x == key) return this;
+            if (x < key) {
+                path.push(node, SearchPath.LEFT);
+                node = arena.left(node);
+            } else {
+                path.push(node, SearchPath.RIGHT);
+                node = arena.right(node);
+            }
+        }
+        int result = arena.allocate(x, NIL, NIL, RED);
+        while (path.depth > 0) {
+            int parent = path.popIndex();
+            result = balance(path.direction == SearchPath.LEFT ? withLeft(parent, result) : withRight(parent, result));
+        }
+        return new OffHeapLongRedBlackTree(arena, withColor(result, BLACK), size + 1);
+    }
+
+    public OffHeapLongRedBlackTree remove(long x) {
+        if (!contains(x)) return this;
+        return new OffHeapLongRedBlackTree(arena, delete(redden(root), x), size - 1);
+    }
+
+    /**
+     * @return tree without its least key, which {@link #peekMin()} returns
+     */
+    public OffHeapLongRedBlackTree removeMin() {
+        arena.checkOpen();
+        SearchPath path = SearchPath.get();
+        int result = removeMin(path, redden(root));
+        return new OffHeapLongRedBlackTree(arena, rebuild(path, result, NIL), size - 1);
+    }
+
+    public boolean contains(long x) {
+        arena.checkOpen();
+        int node = root;
+        while (node > DOUBLE_NIL) {
+            long key = arena.key(node);
+            if (x == key) return true;
+            node = x < key ? arena.left(node) : arena.right(node);
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long peekMin() {
+        if (root <= DOUBLE_NIL) {
+            throw new IllegalStateException("Empty tree");
+        }
+        arena.checkOpen();
+        int node = root;
+        while (arena.left(node) > DOUBLE_NIL) {
+            node = arena.left(node);
+        }
+        return arena.key(node);
+    }
+
+    public long peekMax() {
+        if (root <= DOUBLE_NIL) {
+            throw new IllegalStateException("Empty tree");
+        }
+        arena.checkOpen();
+        int node = root;
+        while (arena.right(node) > DOUBLE_NIL) {
+            node = arena.right(node);
+        }
+        return arena.key(node);
+    }
+
+    public PrimitiveIterator.OfLong iterator() {
+        arena.checkOpen();
+        return new Iterator(arena, root, size);
+    }
+
+    public long[] toArray() {
+        long[] keys = new long[size];
+        PrimitiveIterator.OfLong iterator = iterator();
+        for (int i = 0; i < size; i++) {
+            keys[i] = iterator.nextLong();
+        }
+        return keys;
+    }
+
+    private boolean isRed(int node) {
+        return arena.color(node) == RED;
+    }
+
+    private boolean isBlack(int node) {
+        return arena.color(node) == BLACK;
+    }
+
+    private boolean isBlackNode(int node) {
+        return node != NIL && arena.color(node) == BLACK;
+    }
+
+    private boolean isDoubleBlack(int node) {
+        return arena.color(node) == DOUBLE_BLACK;
+    }
+
+    private int left(int node) {
+        return arena.left(node);
+    }
+
+    private int right(int node) {
+        return arena.right(node);
+    }
+
+    private int with(int node, int left, int right, byte color) {
+        if (left(node) == left && right(node) == right && arena.color(node) == color) return node;
+        if (node == NIL) throw new UnsupportedOperationException();
+        return arena.allocate(arena.key(node), left, right, color);
+    }
+
+    private int withLeft(int node, int left) {
+        return with(node, left, right(node), arena.color(node));
+    }
+
+    private int withRight(int node, int right) {
+        return with(node, left(node), right, arena.color(node));
+    }
+
+    private int withColor(int node, byte color) {
+        return with(node, left(node), right(node), color);
+    }
+
+    private int blacken(int node) {
+        return isRed(node) ? withColor(node, BLACK) : node;
+    }
+
+    private int redden(int node) {
+        return node != NIL && isBlack(node) && isBlack(left(node)) && isBlack(right(node))
+                ? withColor(node, RED) : node;
+    }
+
+    private int demote(int node) {
+        return isDoubleBlack(node) ? (node == DOUBLE_NIL ? NIL : withColor(node, BLACK)) : node;
+    }
+
+    private int balance(int node) {
+        if (node == NIL) return node;
+        int left = left(node);
+        int right = right(node);
+        if (isBlack(node)) {
+            if (isRed(left)) {
+                int leftLeft = left(left);
+                int leftRight = right(left);
+                if (isRed(leftLeft)) {
+                    return with(left, withColor(leftLeft, BLACK), withLeft(node, leftRight), RED);
+                }
+                if (isRed(leftRight)) {
+                    return with(leftRight,
+                            with(left, leftLeft, left(leftRight), BLACK),
+                            withLeft(node, right(leftRight)),
+                            RED
+                    );
+                }
+            }
+            if (isRed(right)) {
+                int rightLeft = left(right);
+                int rightRight = right(right);
+                if (isRed(rightLeft)) {
+                    return with(rightLeft,
+                            withRight(node, left(rightLeft)),
+                            with(right, right(rightLeft), rightRight, BLACK),
+                            RED
+                    );
+                }
+                if (isRed(rightRight)) {
+                    return with(right, withRight(node, rightLeft), withColor(rightRight, BLACK), RED);
+                }
+            }
+        } else if (isDoubleBlack(node)) {
+            if (isRed(left) && isRed(right(left))) {
+                int leftRight = right(left);
+                return with(leftRight,
+                        with(left, left(left), left(leftRight), BLACK),
+                        with(node, right(leftRight), right, BLACK),
+                        BLACK
+                );
+            }
+            if (isRed(right) && isRed(left(right))) {
+                int rightLeft = left(right);
+                return with(rightLeft,
+                        with(node, left, left(rightLeft), BLACK),
+                        with(right, right(rightLeft), right(right), BLACK),
+                        BLACK
+                );
+            }
+        }
+        return node;
+    }
+
+    private int rotate(int node) {
+        int left = left(node);
+        int right = right(node);
+        if (isRed(node)) {
+            if (isDoubleBlack(left) && isBlackNode(right)) {
+                return balance(withLeft(right, with(node, demote(left), left(right), RED)));
+            }
+            if (isBlackNode(left) && isDoubleBlack(right)) {
+                return balance(withRight(left, with(node, right(left), demote(right), RED)));
+            }
+        } else if (isBlackNode(node)) {
+            if (isDoubleBlack(left) && isBlackNode(right)) {
+                return balance(with(right, with(node, demote(left), left(right), RED), right(right), DOUBLE_BLACK));
+            }
+            if (isBlackNode(left) && isDoubleBlack(right)) {
+                return balance(with(left, left(left), with(node, right(left), demote(right), RED), DOUBLE_BLACK));
+            }
+            if (isDoubleBlack(left) && isRed(right) && isBlackNode(left(right))) {
+                int rightLeft = left(right);
+                return with(right,
+                        balance(withLeft(rightLeft, with(node, demote(left), left(rightLeft), RED))),
+                        right(right),
+                        BLACK
+                );
+            }
+            if (isRed(left) && isBlackNode(right(left)) && isDoubleBlack(right)) {
+                int leftRight = right(left);
+                return with(left,
+                        left(left),
+                        balance(withRight(leftRight, with(node, right(leftRight), demote(right), RED))),
+                        BLACK
+                );
+            }
+        }
+        return node;
+    }
+
+    private int delete(int node, long x) {
+        SearchPath path = SearchPath.get();
+        int result;
+        int successor = NIL;
+        while (true) {
+            if (node == NIL) {
+                result = node;
+                break;
+            }
+            int left = left(node);
+            int right = right(node);
+            long key = arena.key(node);
+            if (isRed(node) && left == NIL && right == NIL) {
+                result = x == key ? NIL : node;
+                break;
+            }
+            if (isBlackNode(node) && left == NIL && right == NIL) {
+                result = x == key ? DOUBLE_NIL : node;
+                break;
+            }
+            if (isBlackNode(node) && isRed(left) && left(left) == NIL && right(left) == NIL && right == NIL) {
+                if (x < key) {
+                    path.push(node, SearchPath.LEFT_NO_ROTATE);
+                    node = left;
+                    continue;
+                }
+                result = x == key ? blacken(left) : node;
+                break;
+            }
+            if (x < key) {
+                path.push(node, SearchPath.LEFT);
+                node = left;
+            } else if (x == key) {
+                path.push(node, SearchPath.REPLACE);
+                result = removeMin(path, right);
+                successor = path.foundIndex;
+                break;
+            } else {
+                path.push(node, SearchPath.RIGHT);
+                node = right;
+            }
+        }
+        return rebuild(path, result, successor);
+    }
+
+    private int removeMin(SearchPath path, int node) {
+        while (true) {
+            if (node <= DOUBLE_NIL) {
+                throw new IllegalArgumentException("Empty tree");
+            }
+            int left = left(node);
+            int right = right(node);
+            if (isRed(node) && left == NIL && right == NIL) {
+                path.foundIndex = node;
+                return NIL;
+            }
+            if (isBlackNode(node) && left == NIL && right == NIL) {
+                path.foundIndex = node;
+                return DOUBLE_NIL;
+            }
+            if (isBlackNode(node) && left == NIL && isRed(right) && left(right) == NIL && right(right) == NIL) {
+                path.foundIndex = node;
+                return blacken(right);
+            }
+            path.push(node, SearchPath.LEFT);
+            node = left;
+        }
+    }
+
+    private int rebuild(SearchPath path, int result, int successor) {
+        while (path.depth > 0) {
+            int parent = path.popIndex();
+            switch (path.direction) {
+                case SearchPath.LEFT:
+                    result = rotate(withLeft(parent, result));
+                    break;
+                case SearchPath.RIGHT:
+                    result = rotate(withRight(parent, result));
+                    break;
+                case SearchPath.LEFT_NO_ROTATE:
+                    result = withLeft(parent, result);
+                    break;
+                default:
+                    result = rotate(with(successor, left(parent), result, arena.color(parent)));
+            }
+        }
+        return result;
+    }
+
+    private static final class Iterator implements PrimitiveIterator.OfLong {
+        private final LongArena arena;
+        private final int[] stack;
+        private int depth;
+
+        Iterator(LongArena arena, int root, int size) {
+            this.arena = arena;
+            this.stack = new int[NodeIterator.maxHeight(size)];
+            pushLeftSpine(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            int node = stack[--depth];
+            pushLeftSpine(arena.right(node));
+            return arena.key(node);
+        }
+
+        private void pushLeftSpine(int node) {
+            while (node > DOUBLE_NIL) {
+                stack[depth++] = node;
+                node = arena.left(node);
+            }
+        }
+    }
+
+    /**
+     * Same keys in the same order, arenas and shapes don't matter.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final OffHeapLongRedBlackTree that = (OffHeapLongRedBlackTree) o;
+        if (size != that.size) return false;
+        PrimitiveIterator.OfLong mine = iterator();
+        PrimitiveIterator.OfLong theirs = that.iterator();
+        while (mine.hasNext()) {
+            if (mine.nextLong() != theirs.nextLong()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link java.util.Set#hashCode()} of the boxed keys.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) {
+            hash += Long.hashCode(iterator.nextLong());
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapLongRedBlackTree{" +
+                "root=" + root +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,389 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static me.collections.persistent.redblacktree.LongNode.*;
+
+/**
+ * {@link PersistentRedBlackTree} specialized for {@code long} keys in their natural order. Keys live in the nodes
+ * unboxed and are compared with {@link Long#compare}, nothing on the paths of {@link #contains}, {@link #add},
+ * {@link #remove}, {@link #removeMin} and the primitive iterator boxes. Balancing is the same as in the generic
+ * tree, including the set semantics: no-op updates return this very tree.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PersistentLongRedBlackTree implements Iterable<Long> {
+
+    final LongNode root;
+    private final int size;
+
+    public PersistentLongRedBlackTree() {
+        this(NIL, 0);
+    }
+
+    private PersistentLongRedBlackTree(LongNode root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public PersistentLongRedBlackTree add(long x) {
+        SearchPath path = SearchPath.get();
+        LongNode node = root;
+        while (!node.isNil()) {
+            if (x == node.key) {
+                path.clear();
+                return this;
+            }
+            if (x < node.key) {
+                path.push(node, SearchPath.LEFT);
+                node = node.left;
+            } else {
+                path.push(node, SearchPath.RIGHT);
+                node = node.right;
+            }
+        }
+        LongNode result = new LongNode(x, NIL, NIL, RED);
+        while (path.depth > 0) {
+            LongNode parent = path.pop();
+            result = balance(path.direction == SearchPath.LEFT ? parent.withLeft(result) : parent.withRight(result));
+        }
+        return new PersistentLongRedBlackTree(result.withColor(BLACK), size + 1);
+    }
+
+    public PersistentLongRedBlackTree remove(long x) {
+        if (!contains(x)) return this;
+        return new PersistentLongRedBlackTree(delete(root.redden(), x), size - 1);
+    }
+
+    /**
+     * @return tree without its least key, which {@link #peekMin()} returns
+     */
+    public PersistentLongRedBlackTree removeMin() {
+        SearchPath path = SearchPath.get();
+        LongNode result = removeMin(path, root.redden());
+        return new PersistentLongRedBlackTree(rebuild(path, result, null), size - 1);
+    }
+
+    public boolean contains(long x) {
+        LongNode node = root;
+        while (!node.isEmpty()) {
+            if (x == node.key) return true;
+            node = x < node.key ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long peekMin() {
+        if (root.isEmpty()) {
+            throw new IllegalStateException("Empty tree");
+        }
+        LongNode node = root;
+        while (!node.left.isEmpty()) {
+            node = node.left;
+        }
+        return node.key;
+    }
+
+    public long peekMax() {
+        if (root.isEmpty()) {
+            throw new IllegalStateException("Empty tree");
+        }
+        LongNode node = root;
+        while (!node.right.isEmpty()) {
+            node = node.right;
+        }
+        return node.key;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new LongNodeIterator(root, size);
+    }
+
+    public void forEachLong(LongConsumer action) {
+        iterator().forEachRemaining(action);
+    }
+
+    public LongStream stream() {
+        Spliterator.OfLong spliterator = Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL
+                        | Spliterator.IMMUTABLE);
+        return StreamSupport.longStream(spliterator, false);
+    }
+
+    public long[] toArray() {
+        long[] keys = new long[size];
+        PrimitiveIterator.OfLong iterator = iterator();
+        for (int i = 0; i < size; i++) {
+            keys[i] = iterator.nextLong();
+        }
+        return keys;
+    }
+
+    static LongNode balance(LongNode node) {
+        if (node.isNil()) return node;
+        LongNode left = node.left();
+        LongNode right = node.right();
+        if (node.isBlack()) {
+            if (left.isRed()) {
+                LongNode leftLeft = left.left();
+                LongNode leftRight = left.right();
+                if (leftLeft.isRed()) {
+                    return left.with(leftLeft.withColor(BLACK), node.withLeft(leftRight), RED);
+                }
+                if (leftRight.isRed()) {
+                    return leftRight.with(
+                            left.with(leftLeft, leftRight.left(), BLACK),
+                            node.withLeft(leftRight.right()),
+                            RED
+                    );
+                }
+            }
+            if (right.isRed()) {
+                LongNode rightLeft = right.left();
+                LongNode rightRight = right.right();
+                if (rightLeft.isRed()) {
+                    return rightLeft.with(
+                            node.withRight(rightLeft.left()),
+                            right.with(rightLeft.right(), rightRight, BLACK),
+                            RED
+                    );
+                }
+                if (rightRight.isRed()) {
+                    return right.with(node.withRight(rightLeft), rightRight.withColor(BLACK), RED);
+                }
+            }
+        } else if (node.isDoubleBlack()) {
+            if (left.isRed() && left.right().isRed()) {
+                LongNode leftRight = left.right();
+                return leftRight.with(
+                        left.with(left.left(), leftRight.left(), BLACK),
+                        node.with(leftRight.right(), right, BLACK),
+                        BLACK
+                );
+            }
+            if (right.isRed() && right.left().isRed()) {
+                LongNode rightLeft = right.left();
+                return rightLeft.with(
+                        node.with(left, rightLeft.left(), BLACK),
+                        right.with(rightLeft.right(), right.right(), BLACK),
+                        BLACK
+                );
+            }
+        }
+        return node;
+    }
+
+    static LongNode rotate(LongNode node) {
+        LongNode left = node.left();
+        LongNode right = node.right();
+        if (node.isRed()) {
+            if (left.isDoubleBlack() && right.isBlackNode()) {
+                return balance(right.withLeft(node.with(left.demote(), right.left(), RED)));
+            }
+            if (left.isBlackNode() && right.isDoubleBlack()) {
+                return balance(left.withRight(node.with(left.right(), right.demote(), RED)));
+            }
+        } else if (node.isBlackNode()) {
+            if (left.isDoubleBlack() && right.isBlackNode()) {
+                return balance(right.with(node.with(left.demote(), right.left(), RED), right.right(), DOUBLE_BLACK));
+            }
+            if (left.isBlackNode() && right.isDoubleBlack()) {
+                return balance(left.with(left.left(), node.with(left.right(), right.demote(), RED), DOUBLE_BLACK));
+            }
+            if (left.isDoubleBlack() && right.isRed() && right.left().isBlackNode()) {
+                LongNode rightLeft = right.left();
+                return right.with(
+                        balance(rightLeft.withLeft(node.with(left.demote(), rightLeft.left(), RED))),
+                        right.right(),
+                        BLACK
+                );
+            }
+            if (left.isRed() && left.right().isBlackNode() && right.isDoubleBlack()) {
+                LongNode leftRight = left.right();
+                return left.with(
+                        left.left(),
+                        balance(leftRight.withRight(node.with(leftRight.right(), right.demote(), RED))),
+                        BLACK
+                );
+            }
+        }
+        return node;
+    }
+
+    static LongNode delete(LongNode node, long x) {
+        SearchPath path = SearchPath.get();
+        LongNode result;
+        LongNode successor = null;
+        while (true) {
+            if (node.isNil()) {
+                result = node;
+                break;
+            }
+            LongNode left = node.left();
+            LongNode right = node.right();
+            if (node.isRed() && left.isNil() && right.isNil()) {
+                result = x == node.key ? NIL : node;
+                break;
+            }
+            if (node.isBlackNode() && left.isNil() && right.isNil()) {
+                result = x == node.key ? DOUBLE_NIL : node;
+                break;
+            }
+            if (node.isBlackNode() && left.isRed() && left.left().isNil() && left.right().isNil() && right.isNil()) {
+                if (x < node.key) {
+                    path.push(node, SearchPath.LEFT_NO_ROTATE);
+                    node = left;
+                    continue;
+                }
+                result = x == node.key ? left.blacken() : node;
+                break;
+            }
+            if (x < node.key) {
+                path.push(node, SearchPath.LEFT);
+                node = left;
+            } else if (x == node.key) {
+                path.push(node, SearchPath.REPLACE);
+                result = removeMin(path, right);
+                successor = path.found();
+                break;
+            } else {
+                path.push(node, SearchPath.RIGHT);
+                node = right;
+            }
+        }
+        return rebuild(path, result, successor);
+    }
+
+    private static LongNode removeMin(SearchPath path, LongNode node) {
+        while (true) {
+            if (node.isEmpty()) {
+                throw new IllegalArgumentException("Empty tree");
+            }
+            LongNode left = node.left();
+            LongNode right = node.right();
+            if (node.isRed() && left.isNil() && right.isNil()) {
+                path.found = node;
+                return NIL;
+            }
+            if (node.isBlackNode() && left.isNil() && right.isNil()) {
+                path.found = node;
+                return DOUBLE_NIL;
+            }
+            if (node.isBlackNode() && left.isNil()
+                    && right.isRed() && right.left().isNil() && right.right().isNil()) {
+                path.found = node;
+                return right.blacken();
+            }
+            path.push(node, SearchPath.LEFT);
+            node = left;
+        }
+    }
+
+    private static LongNode rebuild(SearchPath path, LongNode result, LongNode successor) {
+        while (path.depth > 0) {
+            LongNode parent = path.pop();
+            switch (path.direction) {
+                case SearchPath.LEFT:
+                    result = rotate(parent.withLeft(result));
+                    break;
+                case SearchPath.RIGHT:
+                    result = rotate(parent.withRight(result));
+                    break;
+                case SearchPath.LEFT_NO_ROTATE:
+                    result = parent.withLeft(result);
+                    break;
+                default:
+                    result = rotate(successor.with(parent.left(), result, parent.color));
+            }
+        }
+        path.found = null;
+        return result;
+    }
+
+    /**
+     * Same as {@link NodeIterator}, the stack is bounded by the tree height.
+     */
+    private static final class LongNodeIterator implements PrimitiveIterator.OfLong {
+        private final LongNode[] stack;
+        private int depth;
+
+        LongNodeIterator(LongNode root, int size) {
+            this.stack = new LongNode[NodeIterator.maxHeight(size)];
+            pushLeftSpine(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            LongNode node = stack[--depth];
+            stack[depth] = null;
+            pushLeftSpine(node.right);
+            return node.key;
+        }
+
+        private void pushLeftSpine(LongNode node) {
+            while (!node.isEmpty()) {
+                stack[depth++] = node;
+                node = node.left;
+            }
+        }
+    }
+
+    /**
+     * Same keys in the same order, the shape of the trees doesn't matter.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final PersistentLongRedBlackTree that = (PersistentLongRedBlackTree) o;
+        if (size != that.size) return false;
+        PrimitiveIterator.OfLong mine = iterator();
+        PrimitiveIterator.OfLong theirs = that.iterator();
+        while (mine.hasNext()) {
+            if (mine.nextLong() != theirs.nextLong()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same as {@link Set#hashCode()} of the boxed keys.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        PrimitiveIterator.OfLong iterator = iterator();
+        while (iterator.hasNext()) {
+            hash += Long.hashCode(iterator.nextLong());
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentLongRedBlackTree{" +
+                "root=" + root +
+                '}';
+    }
+}
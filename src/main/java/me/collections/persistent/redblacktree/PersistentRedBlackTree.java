@@ -3,9 +3,12 @@ package me.collections.persistent.redblacktree;
 import me.collections.util.Pair;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static me.collections.persistent.redblacktree.Node.Builder.*;
+import static me.collections.persistent.redblacktree.Node.Color.*;
 import static me.collections.persistent.redblacktree.Node.doubleNil;
 import static me.collections.persistent.redblacktree.Node.nil;
 
@@ -13,9 +16,14 @@ import static me.collections.persistent.redblacktree.Node.nil;
  * @author nickolaysaveliev
  * @since 07/12/2017
  */
-@SuppressWarnings("WeakerAccess")
+@SuppressWarnings({"WeakerAccess", "unchecked"})
 public class PersistentRedBlackTree<K extends Comparable<K>> implements Iterable<K> {
 
+    /**
+     * Subproblem size below which forking costs more than it saves.
+     */
+    public static final int DEFAULT_PARALLEL_CUTOFF = 1 << 13;
+
     final Node<K> root;
     private final Comparator<K> comparator;
 
@@ -39,29 +47,272 @@ public class PersistentRedBlackTree<K extends Comparable<K>> implements Iterable
         this.comparator = comparator;
     }
 
+    public static <K extends Comparable<K>> PersistentRedBlackTree<K> fromSorted(K[] keys) {
+        return fromSorted(Arrays.asList(keys), Comparator.naturalOrder());
+    }
+
+    public static <K extends Comparable<K>> PersistentRedBlackTree<K> fromSorted(K[] keys, Comparator<K> comparator) {
+        return fromSorted(Arrays.asList(keys), comparator);
+    }
+
+    public static <K extends Comparable<K>> PersistentRedBlackTree<K> fromSorted(Iterable<? extends K> keys) {
+        return fromSorted(keys, Comparator.naturalOrder());
+    }
+
+    /**
+     * Builds a tree from strictly ascending keys in linear time, allocating exactly one node per key.
+     * The tree is perfectly balanced, only the nodes of an incomplete bottom level are red.
+     */
+    public static <K extends Comparable<K>> PersistentRedBlackTree<K> fromSorted(Iterable<? extends K> keys,
+                                                                                Comparator<K> comparator) {
+        checkNotNull(keys);
+        checkNotNull(comparator);
+        Collection<? extends K> collection;
+        if (keys instanceof Collection) {
+            collection = (Collection<? extends K>) keys;
+        } else {
+            List<K> list = new ArrayList<>();
+            keys.forEach(list::add);
+            collection = list;
+        }
+        int size = collection.size();
+        SortedKeys<K> sortedKeys = new SortedKeys<>(collection.iterator(), comparator);
+        Node<K> root = buildFromSorted(sortedKeys, 0, size - 1, 0, redLevel(size));
+        return new PersistentRedBlackTree<>(root, comparator);
+    }
+
+    /**
+     * Keys are unique: adding a key that is already there returns this very tree, so reference equality tells
+     * whether anything changed.
+     */
     public PersistentRedBlackTree<K> add(K x) {
-        Node<K> newNode = red(checkNotNull(x)).build();
-        return new PersistentRedBlackTree<>(makeBlack(insert(root, newNode, comparator)), comparator);
+        Node<K> newRoot = insert(null, root, checkNotNull(x), comparator);
+        return newRoot == root ? this : new PersistentRedBlackTree<>(makeBlack(newRoot), comparator);
     }
 
     public Pair<K, PersistentRedBlackTree<K>> pollMin() {
-        Pair<K, Node<K>> pair = minRemove(root);
+        Pair<K, Node<K>> pair = minRemove(root.redden());
         return Pair.of(pair.getKey(), new PersistentRedBlackTree<>(pair.getValue(), comparator));
     }
 
+    /**
+     * Removing an absent key returns this very tree. The key is looked up first, since the deletion itself starts
+     * by copying the root.
+     */
     public PersistentRedBlackTree<K> remove(K x) {
-        return new PersistentRedBlackTree<>(delete(root.redden(), checkNotNull(x), comparator), comparator);
+        if (find(root, checkNotNull(x), comparator) == null) return this;
+        return new PersistentRedBlackTree<>(delete(root.redden(), x, comparator), comparator);
+    }
+
+    /**
+     * @return mutable copy for batch updates that shares all nodes with this tree until they are touched
+     */
+    public TransientRedBlackTree<K> asTransient() {
+        return new TransientRedBlackTree<>(root, comparator);
+    }
+
+    /**
+     * Keys of both trees. Runs in O(m log(n / m + 1)) for sizes m <= n and shares every subtree that doesn't
+     * straddle a key of the other tree, so merging mostly disjoint trees copies very little.
+     * Both trees are expected to use the same ordering, equal keys are taken from {@code other}.
+     */
+    public PersistentRedBlackTree<K> union(PersistentRedBlackTree<K> other) {
+        return withRoot(SetOperations.union(root, checkNotNull(other).root, comparator));
+    }
+
+    /**
+     * Keys present in both trees, same cost and ordering requirements as {@link #union}.
+     */
+    public PersistentRedBlackTree<K> intersection(PersistentRedBlackTree<K> other) {
+        return withRoot(SetOperations.intersection(root, checkNotNull(other).root, comparator));
+    }
+
+    /**
+     * Keys of this tree absent in {@code other}, same cost and ordering requirements as {@link #union}.
+     */
+    public PersistentRedBlackTree<K> difference(PersistentRedBlackTree<K> other) {
+        return withRoot(SetOperations.difference(root, checkNotNull(other).root, comparator));
+    }
+
+    /**
+     * {@link #union} computed by fork/join tasks in {@code pool}, with the default cutoff.
+     */
+    public PersistentRedBlackTree<K> unionParallel(PersistentRedBlackTree<K> other, ForkJoinPool pool) {
+        return unionParallel(other, pool, DEFAULT_PARALLEL_CUTOFF);
+    }
+
+    /**
+     * {@link #union} computed by fork/join tasks in {@code pool}. Subproblems where both trees together hold at
+     * most {@code cutoff} keys are solved sequentially.
+     */
+    public PersistentRedBlackTree<K> unionParallel(PersistentRedBlackTree<K> other, ForkJoinPool pool, int cutoff) {
+        return parallel(SetOperations.Kind.UNION, other, pool, cutoff);
+    }
+
+    /**
+     * {@link #difference} computed by fork/join tasks in {@code pool}, with the default cutoff.
+     */
+    public PersistentRedBlackTree<K> differenceParallel(PersistentRedBlackTree<K> other, ForkJoinPool pool) {
+        return differenceParallel(other, pool, DEFAULT_PARALLEL_CUTOFF);
+    }
+
+    /**
+     * {@link #difference} computed by fork/join tasks in {@code pool}, see {@link #unionParallel} for the cutoff.
+     */
+    public PersistentRedBlackTree<K> differenceParallel(PersistentRedBlackTree<K> other, ForkJoinPool pool,
+                                                        int cutoff) {
+        return parallel(SetOperations.Kind.DIFFERENCE, other, pool, cutoff);
+    }
+
+    /**
+     * Reports the keys {@code newer} gained and lost relative to {@code older}, merged in ascending order. Subtrees
+     * the versions share by reference are skipped without being walked, so for a version derived from the other one
+     * by d updates the cost is O(d log n) rather than O(n). Both trees are expected to use the same ordering.
+     */
+    public static <K extends Comparable<K>> void diff(PersistentRedBlackTree<K> older,
+                                                      PersistentRedBlackTree<K> newer,
+                                                      Consumer<? super K> added, Consumer<? super K> removed) {
+        checkNotNull(older);
+        checkNotNull(newer);
+        TreeDiff.diff(older.root, newer.root, newer.comparator, checkNotNull(added), checkNotNull(removed));
+    }
+
+    private PersistentRedBlackTree<K> parallel(SetOperations.Kind kind, PersistentRedBlackTree<K> other,
+                                               ForkJoinPool pool, int cutoff) {
+        checkNotNull(other);
+        checkNotNull(pool);
+        if (cutoff < 0) {
+            throw new IllegalArgumentException("Negative cutoff: " + cutoff);
+        }
+        return withRoot(SetOperations.parallel(kind, root, other.root, comparator, pool, cutoff));
+    }
+
+    private PersistentRedBlackTree<K> withRoot(Node<K> newRoot) {
+        return newRoot == root ? this : new PersistentRedBlackTree<>(newRoot.blacken(), comparator);
     }
 
     public boolean contains(K x) {
+        return find(root, checkNotNull(x), comparator) != null;
+    }
+
+    /**
+     * @return the greatest key less than or equal to {@code x}, {@code null} if there is none
+     */
+    public K floor(K x) {
+        return keyOrNull(floor(root, checkNotNull(x), comparator));
+    }
+
+    /**
+     * @return the least key greater than or equal to {@code x}, {@code null} if there is none
+     */
+    public K ceiling(K x) {
+        return keyOrNull(ceiling(root, checkNotNull(x), comparator));
+    }
+
+    /**
+     * @return the greatest key strictly less than {@code x}, {@code null} if there is none
+     */
+    public K lower(K x) {
+        return keyOrNull(lower(root, checkNotNull(x), comparator));
+    }
+
+    /**
+     * @return the least key strictly greater than {@code x}, {@code null} if there is none
+     */
+    public K higher(K x) {
+        return keyOrNull(higher(root, checkNotNull(x), comparator));
+    }
+
+    /**
+     * Keys from {@code from} inclusive to {@code to} exclusive as a tree of its own. Both bounds are found by a
+     * split, so it costs O(log n) and shares every subtree that lies inside the range with this tree,
+     * iterating a range of k keys is O(log n + k).
+     */
+    public PersistentRedBlackTree<K> subSet(K from, K to) {
+        return subSet(from, true, to, false);
+    }
+
+    public PersistentRedBlackTree<K> subSet(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        checkNotNull(from);
+        checkNotNull(to);
+        if (comparator.compare(from, to) > 0) {
+            throw new IllegalArgumentException("from > to: " + from + ", " + to);
+        }
+        Node<K> tail = SetOperations.tail(root, from, fromInclusive, comparator);
+        return withRoot(SetOperations.head(tail, to, toInclusive, comparator));
+    }
+
+    /**
+     * Keys strictly less than {@code to}, see {@link #subSet(Object, Object)} for the cost.
+     */
+    public PersistentRedBlackTree<K> headSet(K to) {
+        return headSet(to, false);
+    }
+
+    public PersistentRedBlackTree<K> headSet(K to, boolean inclusive) {
+        return withRoot(SetOperations.head(root, checkNotNull(to), inclusive, comparator));
+    }
+
+    /**
+     * Keys greater than or equal to {@code from}, see {@link #subSet(Object, Object)} for the cost.
+     */
+    public PersistentRedBlackTree<K> tailSet(K from) {
+        return tailSet(from, true);
+    }
+
+    public PersistentRedBlackTree<K> tailSet(K from, boolean inclusive) {
+        return withRoot(SetOperations.tail(root, checkNotNull(from), inclusive, comparator));
+    }
+
+    private static <K1> K1 keyOrNull(Node<K1> node) {
+        return node == null ? null : node.key();
+    }
+
+    public int size() {
+        return root.size();
+    }
+
+    public boolean isEmpty() {
+        return root.size() == 0;
+    }
+
+    /**
+     * @return number of keys strictly less than {@code x}
+     */
+    public int rank(K x) {
         checkNotNull(x);
+        int rank = 0;
         Node<K> node = root;
         while (!node.isNil() && !node.isDoubleNil()) {
-            int compare = comparator.compare(x, node.key());
-            if (compare == 0) return true;
-            node = compare < 0 ? node.left() : node.right();
+            if (comparator.compare(x, node.key()) <= 0) {
+                node = node.left();
+            } else {
+                rank += node.left().size() + 1;
+                node = node.right();
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * @return key with the given zero-based position in the sorted order
+     */
+    public K select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        Node<K> node = root;
+        while (true) {
+            int leftSize = node.left().size();
+            if (index < leftSize) {
+                node = node.left();
+            } else if (index == leftSize) {
+                return node.key();
+            } else {
+                index -= leftSize + 1;
+                node = node.right();
+            }
         }
-        return false;
     }
 
     public K peekMin() {
@@ -91,261 +342,304 @@ public class PersistentRedBlackTree<K extends Comparable<K>> implements Iterable
     }
 
     static <K1 extends Comparable<K1>> Node<K1> insert(Node<K1> node, Node<K1> newNode, Comparator<K1> comparator) {
-        if (node.isNil()) {
-            return newNode;
-        } else if (comparator.compare(newNode.key(), node.key()) < 0) {
-            return balance(copy(node).left(insert(node.left(), newNode, comparator)).build());
-        } else {
-            return balance(copy(node).right(insert(node.right(), newNode, comparator)).build());
-        }
+        return insert(null, node, newNode, comparator);
     }
 
-    static <K1 extends Comparable<K1>> Node<K1> balance(Node<K1> node) {
-        if (!node.isNil() && node.isBlack()) {
-            boolean leftLeftCase = node.left().isRed() && node.left().left().isRed();
-            if (leftLeftCase) {
-                return red(node.left().key())
-                        .left(makeBlack(node.left().left()))
-                        .right(copy(node)
-                                .left(node.left().right())
-                                .build())
-                        .build();
-            }
+    /**
+     * @return tree with {@code newNode} added, or {@code node} itself if its key is already there
+     */
+    static <K1 extends Comparable<K1>> Node<K1> insert(Object edit, Node<K1> node, Node<K1> newNode,
+                                                       Comparator<K1> comparator) {
+        SearchPath path = SearchPath.get();
+        if (!descendToLeaf(path, node, newNode.key(), comparator)) return node;
+        return rebuildInserted(edit, path, newNode);
+    }
 
-            boolean leftRightCase = node.left().isRed() && node.left().right().isRed();
-            if (leftRightCase) {
-                return red(node.left().right().key())
-                        .left(copy(node.left())
-                                .black()
-                                .right(node.left().right().left())
-                                .build())
-                        .right(copy(node)
-                                .left(node.left().right().right())
-                                .build())
-                        .build();
-            }
+    /**
+     * Same as {@link #insert(Object, Node, Node, Comparator)}, but the leaf is only created once the key turns out
+     * to be absent.
+     */
+    static <K1 extends Comparable<K1>> Node<K1> insert(Object edit, Node<K1> node, K1 key, Comparator<K1> comparator) {
+        SearchPath path = SearchPath.get();
+        if (!descendToLeaf(path, node, key, comparator)) return node;
+        Node<K1> newNode = edit == null
+                ? new Node<>(key, nil(), nil(), RED)
+                : new EditableNode<>(edit, key, nil(), nil(), RED);
+        return rebuildInserted(edit, path, newNode);
+    }
 
-            boolean rightLeftCase = node.right().isRed() && node.right().left().isRed();
-            if (rightLeftCase) {
-                return red(node.right().left().key())
-                        .left(copy(node)
-                                .right(node.right().left().left())
-                                .build())
-                        .right(copy(node.right())
-                                .black()
-                                .left(node.right().left().right())
-                                .build())
-                        .build();
+    /**
+     * Records the search path for {@code key} down to a nil leaf.
+     *
+     * @return {@code false} with an empty path if the key is already in the tree
+     */
+    private static <K1> boolean descendToLeaf(SearchPath path, Node<K1> node, K1 key, Comparator<K1> comparator) {
+        while (!node.isNil()) {
+            int compare = comparator.compare(key, node.key());
+            if (compare == 0) {
+                path.clear();
+                return false;
             }
-
-            boolean rightRightCase = node.right().isRed() && node.right().right().isRed();
-            if (rightRightCase) {
-                return red(node.right().key())
-                        .left(copy(node)
-                                .right(node.right().left())
-                                .build())
-                        .right(makeBlack(node.right().right()))
-                        .build();
+            if (compare < 0) {
+                path.push(node, SearchPath.LEFT);
+                node = node.left();
+            } else {
+                path.push(node, SearchPath.RIGHT);
+                node = node.right();
             }
         }
-        if (!node.isNil() && node.isDoubleBlack()) {
-            boolean doubleBlackLeftRightCase = node.left().isRed() && node.left().right().isRed();
-            if (doubleBlackLeftRightCase) {
-                return black(node.left().right().key())
-                        .left(black(node.left().key())
-                                .left(node.left().left())
-                                .right(node.left().right().left())
-                                .build()
-                        )
-                        .right(black(node.key())
-                                .left(node.left().right().right())
-                                .right(node.right())
-                                .build()
-                        )
-                        .build();
+        return true;
+    }
+
+    private static <K1 extends Comparable<K1>> Node<K1> rebuildInserted(Object edit, SearchPath path, Node<K1> result) {
+        while (path.depth > 0) {
+            Node<K1> parent = path.pop();
+            result = balance(edit, path.direction == SearchPath.LEFT
+                    ? parent.withLeft(edit, result)
+                    : parent.withRight(edit, result));
+        }
+        return result;
+    }
+
+    static <K1 extends Comparable<K1>> Node<K1> balance(Node<K1> node) {
+        return balance(null, node);
+    }
+
+    static <K1 extends Comparable<K1>> Node<K1> balance(Object edit, Node<K1> node) {
+        if (node.isNil()) return node;
+        Node<K1> left = node.left();
+        Node<K1> right = node.right();
+        if (node.isBlack()) {
+            if (left.isRed()) {
+                Node<K1> leftLeft = left.left();
+                Node<K1> leftRight = left.right();
+                // B (T R (T R a x b) y c) z d = T R (T B a x b) y (T B c z d)
+                if (leftLeft.isRed()) {
+                    return left.with(edit, leftLeft.withColor(edit, BLACK), node.withLeft(edit, leftRight), RED);
+                }
+                // B (T R a x (T R b y c)) z d = T R (T B a x b) y (T B c z d)
+                if (leftRight.isRed()) {
+                    return leftRight.with(edit,
+                            left.with(edit, leftLeft, leftRight.left(), BLACK),
+                            node.withLeft(edit, leftRight.right()),
+                            RED
+                    );
+                }
             }
-            boolean doubleBlackRightLeftCase = node.right().isRed() && node.right().left().isRed();
-            if (doubleBlackRightLeftCase) {
-                return black(node.right().left().key())
-                        .left(black(node.key())
-                                .left(node.left())
-                                .right(node.right().left().left())
-                                .build()
-                        )
-                        .right(black(node.right().key())
-                                .left(node.right().left().right())
-                                .right(node.right().right())
-                                .build()
-                        )
-                        .build();
+            if (right.isRed()) {
+                Node<K1> rightLeft = right.left();
+                Node<K1> rightRight = right.right();
+                // B a x (T R (T R b y c) z d) = T R (T B a x b) y (T B c z d)
+                if (rightLeft.isRed()) {
+                    return rightLeft.with(edit,
+                            node.withRight(edit, rightLeft.left()),
+                            right.with(edit, rightLeft.right(), rightRight, BLACK),
+                            RED
+                    );
+                }
+                // B a x (T R b y (T R c z d)) = T R (T B a x b) y (T B c z d)
+                if (rightRight.isRed()) {
+                    return right.with(edit, node.withRight(edit, rightLeft), rightRight.withColor(edit, BLACK), RED);
+                }
+            }
+        } else if (node.isDoubleBlack()) {
+            // BB (T R a x (T R b y c)) z d = T B (T B a x b) y (T B c z d)
+            if (left.isRed() && left.right().isRed()) {
+                Node<K1> leftRight = left.right();
+                return leftRight.with(edit,
+                        left.with(edit, left.left(), leftRight.left(), BLACK),
+                        node.with(edit, leftRight.right(), right, BLACK),
+                        BLACK
+                );
+            }
+            // BB a x (T R (T R b y c) z d) = T B (T B a x b) y (T B c z d)
+            if (right.isRed() && right.left().isRed()) {
+                Node<K1> rightLeft = right.left();
+                return rightLeft.with(edit,
+                        node.with(edit, left, rightLeft.left(), BLACK),
+                        right.with(edit, rightLeft.right(), right.right(), BLACK),
+                        BLACK
+                );
             }
         }
         return node;
     }
 
     static <K1 extends Comparable<K1>> Node<K1> rotate(Node<K1> node) {
+        return rotate(null, node);
+    }
+
+    static <K1 extends Comparable<K1>> Node<K1> rotate(Object edit, Node<K1> node) {
         Node<K1> left = node.left();
         Node<K1> right = node.right();
         if (node.isRed()) {
             // R (T BB a x b) y (T B c z d) = balance B (T R (T B a x b) y c) z d
             // R EE           y (T B c z d) = balance B (T R E y c) z d
             if (left.isDoubleBlack() && right.isBlackNode()) {
-                return balance(
-                        copy(right)
-                                .left(red(node.key())
-                                        .left(left.demote())
-                                        .right(right.left())
-                                        .build()
-                                )
-                                .build()
-                );
+                return balance(edit, right.withLeft(edit, node.with(edit, left.demote(edit), right.left(), RED)));
             }
             // R (T B a x b) y (T BB c z d) = balance B a x (T R b y (T B c z d))
             // R (T B a x b) y EE           = balance B a x (T R b y E)
             if (left.isBlackNode() && right.isDoubleBlack()) {
-                return balance(
-                        copy(left)
-                                .right(red(node.key())
-                                        .left(left.right())
-                                        .right(right.demote())
-                                        .build()
-                                )
-                                .build()
-                );
+                return balance(edit, left.withRight(edit, node.with(edit, left.right(), right.demote(edit), RED)));
             }
         } else if (node.isBlackNode()) {
             // B (T BB a x b) y (T B c z d) = balance BB (T R (T B a x b) y c) z d
             // B EE           y (T B c z d) = balance BB (T R E y c) z d
             if (left.isDoubleBlack() && right.isBlackNode()) {
-                return balance(
-                        copy(right)
-                                .doubleBlack()
-                                .left(red(node.key())
-                                        .left(left.demote())
-                                        .right(right.left())
-                                        .build())
-                                .build()
-                );
+                return balance(edit, right.with(edit,
+                        node.with(edit, left.demote(edit), right.left(), RED),
+                        right.right(),
+                        DOUBLE_BLACK
+                ));
             }
             // B (T B a x b) y (T BB c z d) = balance BB a x (T R b y (T B c z d))
             // B (T B a x b) y EE           = balance BB a x (T R b y E)
             if (left.isBlackNode() && right.isDoubleBlack()) {
-                return balance(
-                        copy(left)
-                                .doubleBlack()
-                                .right(red(node.key())
-                                        .left(left.right())
-                                        .right(right.demote())
-                                        .build())
-                                .build()
-                );
+                return balance(edit, left.with(edit,
+                        left.left(),
+                        node.with(edit, left.right(), right.demote(edit), RED),
+                        DOUBLE_BLACK
+                ));
             }
             // B (T BB a w b) x (T R (T B c y d) z e) = T B (balance B (T R (T B a w b) x c) y d) z e
             // B EE           x (T R (T B c y d) z e) = T B (balance B (T R E x c) y d) z e
             if (left.isDoubleBlack() && right.isRed() && right.left().isBlackNode()) {
-                return black(right.key())
-                        .left(balance(
-                                copy(right.left())
-                                        .left(red(node.key())
-                                                .left(left.demote())
-                                                .right(right.left().left())
-                                                .build())
-                                        .build()
-                                )
-                        )
-                        .right(right.right())
-                        .build();
+                Node<K1> rightLeft = right.left();
+                return right.with(edit,
+                        balance(edit, rightLeft.withLeft(edit,
+                                node.with(edit, left.demote(edit), rightLeft.left(), RED))),
+                        right.right(),
+                        BLACK
+                );
             }
             // B (T R a w (T B b x c)) y (T BB d z e) = T B a w (balance B b x (T R c y (T B d z e)))
             // B (T R a w (T B b x c)) y EE           = T B a w (balance B b x (T R c y E))
             if (left.isRed() && left.right().isBlackNode() && right.isDoubleBlack()) {
-                return copy(left)
-                        .black()
-                        .right(balance(
-                                copy(left.right())
-                                        .right(red(node.key())
-                                                .left(left.right().right())
-                                                .right(right.demote())
-                                                .build())
-                                        .build()
-                                )
-                        )
-                        .build();
+                Node<K1> leftRight = left.right();
+                return left.with(edit,
+                        left.left(),
+                        balance(edit, leftRight.withRight(edit,
+                                node.with(edit, leftRight.right(), right.demote(edit), RED))),
+                        BLACK
+                );
             }
         }
         return node;
     }
 
     static <K1 extends Comparable<K1>> Pair<K1, Node<K1>> minRemove(Node<K1> node) {
-        if (node.isNil() || node.isDoubleNil()) {
-            throw new IllegalArgumentException("Empty tree");
-        }
-        if (node.isRed() && node.left().isNil() && node.right().isNil()) {
-            return Pair.of(node.key(), nil());
-        }
-        if (node.isBlackNode() && node.left().isNil() && node.right().isNil()) {
-            return Pair.of(node.key(), doubleNil());
-        }
-        if (node.isBlackNode() && node.left().isNil()
-                && node.right().isRed() && node.right().left().isNil() && node.right().right().isNil()) {
-            return Pair.of(node.key(), node.right().blacken());
-        }
-        Pair<K1, Node<K1>> leftMin = minRemove(node.left());
-        return Pair.of(leftMin.getKey(), rotate(copy(node).left(leftMin.getValue()).build()));
+        return minRemove(null, node);
+    }
+
+    static <K1 extends Comparable<K1>> Pair<K1, Node<K1>> minRemove(Object edit, Node<K1> node) {
+        SearchPath path = SearchPath.get();
+        Node<K1> result = removeMin(edit, path, node);
+        K1 min = path.<Node<K1>>found().key();
+        return Pair.of(min, rebuild(edit, path, result, null));
     }
 
     static <K1 extends Comparable<K1>> Node<K1> delete(Node<K1> node, K1 x, Comparator<K1> comparator) {
-        if (node.isNil()) return node;
-        Node<K1> left = node.left();
-        Node<K1> right = node.right();
-        K1 key = node.key();
-        int compare = comparator.compare(x, key);
-        if (node.isRed() && left.isNil() && right.isNil()) {
-            return compare == 0 ? nil() : node;
-        }
-        if (node.isBlackNode() && left.isNil() && right.isNil()) {
-            return compare == 0 ? doubleNil() : node;
-        }
+        return delete(null, node, x, comparator);
+    }
 
-        if (node.isBlackNode() && left.isRed() && left.left().isNil() && left.right().isNil() && right.isNil()) {
+    static <K1 extends Comparable<K1>> Node<K1> delete(Object edit, Node<K1> node, K1 x, Comparator<K1> comparator) {
+        SearchPath path = SearchPath.get();
+        Node<K1> result;
+        Node<K1> successor = null;
+        while (true) {
+            if (node.isNil()) {
+                result = node;
+                break;
+            }
+            Node<K1> left = node.left();
+            Node<K1> right = node.right();
+            int compare = comparator.compare(x, node.key());
+            if (node.isRed() && left.isNil() && right.isNil()) {
+                result = compare == 0 ? nil() : node;
+                break;
+            }
+            if (node.isBlackNode() && left.isNil() && right.isNil()) {
+                result = compare == 0 ? doubleNil() : node;
+                break;
+            }
+            if (node.isBlackNode() && left.isRed() && left.left().isNil() && left.right().isNil() && right.isNil()) {
+                if (compare < 0) {
+                    path.push(node, SearchPath.LEFT_NO_ROTATE);
+                    node = left;
+                    continue;
+                }
+                result = compare == 0 ? left.blacken(edit) : node;
+                break;
+            }
             if (compare < 0) {
-                return copy(node)
-                        .left(delete(left, x, comparator))
-                        .build();
+                path.push(node, SearchPath.LEFT);
+                node = left;
             } else if (compare == 0) {
-                return left.blacken();
+                path.push(node, SearchPath.REPLACE);
+                result = removeMin(edit, path, right);
+                successor = path.found();
+                break;
             } else {
-                return node;
+                path.push(node, SearchPath.RIGHT);
+                node = right;
             }
         }
-        if (compare < 0) {
-            return rotate(
-                    copy(node)
-                            .left(delete(left, x, comparator))
-                            .build()
-            );
-        } else if (compare == 0) {
-            Pair<K1, Node<K1>> pair = minRemove(right);
-            return rotate(
-                    copy(node)
-                            .key(pair.getKey())
-                            .right(pair.getValue())
-                            .build()
-            );
-        } else {
-            return rotate(
-                    copy(node)
-                            .right(delete(right, x, comparator))
-                            .build()
-            );
+        return rebuild(edit, path, result, successor);
+    }
+
+    /**
+     * Walks down the left spine of {@code node} recording it in {@code path}, leaves the minimum in
+     * {@link SearchPath#found()} and returns what replaces the bottom of the spine once the minimum is gone.
+     */
+    private static <K1> Node<K1> removeMin(Object edit, SearchPath path, Node<K1> node) {
+        while (true) {
+            if (node.isNil() || node.isDoubleNil()) {
+                throw new IllegalArgumentException("Empty tree");
+            }
+            Node<K1> left = node.left();
+            Node<K1> right = node.right();
+            if (node.isRed() && left.isNil() && right.isNil()) {
+                path.found = node;
+                return nil();
+            }
+            if (node.isBlackNode() && left.isNil() && right.isNil()) {
+                path.found = node;
+                return doubleNil();
+            }
+            if (node.isBlackNode() && left.isNil()
+                    && right.isRed() && right.left().isNil() && right.right().isNil()) {
+                path.found = node;
+                return right.blacken(edit);
+            }
+            path.push(node, SearchPath.LEFT);
+            node = left;
         }
     }
 
-    private static <K1 extends Comparable<K1>> void inOrderTraverse(Node<K1> root, Consumer<Node<K1>> nodeConsumer) {
-        if (root.isNil()) return;
-        inOrderTraverse(root.left(), nodeConsumer);
-        nodeConsumer.accept(root);
-        inOrderTraverse(root.right(), nodeConsumer);
+    /**
+     * Copies the recorded path bottom-up around {@code result}, rotating away double-black nodes on the way.
+     */
+    private static <K1 extends Comparable<K1>> Node<K1> rebuild(Object edit, SearchPath path, Node<K1> result,
+                                                                Node<K1> successor) {
+        while (path.depth > 0) {
+            Node<K1> parent = path.pop();
+            switch (path.direction) {
+                case SearchPath.LEFT:
+                    result = rotate(edit, parent.withLeft(edit, result));
+                    break;
+                case SearchPath.RIGHT:
+                    result = rotate(edit, parent.withRight(edit, result));
+                    break;
+                case SearchPath.LEFT_NO_ROTATE:
+                    result = parent.withLeft(edit, result);
+                    break;
+                default:
+                    result = rotate(edit, successor.with(edit, parent.left(), result, parent.color()));
+            }
+        }
+        path.found = null;
+        return result;
     }
 
     @Override
@@ -365,38 +659,189 @@ public class PersistentRedBlackTree<K extends Comparable<K>> implements Iterable
 
     @Override
     public int hashCode() {
-        return Objects.hash(root);
+        return root.hashCode();
     }
 
     @Override
     public Iterator<K> iterator() {
-        List<K> nodes = new ArrayList<>();
-        inOrderTraverse(root, node -> nodes.add(node.key()));
-        Iterator<K> iterator = nodes.iterator();
-        return new Iterator<K>() {
-            @Override
-            public boolean hasNext() {
-                return iterator.hasNext();
-            }
+        return new NodeIterator<>(root);
+    }
 
-            @Override
-            public K next() {
-                return iterator.next();
-            }
-        };
+    @Override
+    public Spliterator<K> spliterator() {
+        return new NodeSpliterator<>(root, comparator);
+    }
+
+    public Iterator<K> descendingIterator() {
+        return new NodeIterator<>(root, true);
+    }
+
+    /**
+     * @return unmodifiable view backed by this tree, lookups and navigation run in O(log n) without copying
+     */
+    public NavigableSet<K> asNavigableSet() {
+        return new NavigableSetView<>(this, false);
+    }
+
+    Comparator<K> comparator() {
+        return comparator;
+    }
+
+    public Stream<K> stream() {
+        return StreamSupport.stream(spliterator(), false);
     }
 
     public List<K> asList() {
-        List<K> list = new ArrayList<>();
-        iterator().forEachRemaining(list::add);
+        List<K> list = new ArrayList<>(size());
+        forEach(list::add);
         return list;
     }
 
-    private static <K1 extends Comparable<K1>> Node<K1> makeBlack(Node<K1> node) {
-        return node.isNil() ? nil() : copy(node).black().build();
+    private static <K1> Node<K1> buildFromSorted(Iterator<K1> keys, int lo, int hi, int level, int redLevel) {
+        if (lo > hi) return nil();
+        int mid = (lo + hi) >>> 1;
+        Node<K1> left = buildFromSorted(keys, lo, mid - 1, level + 1, redLevel);
+        K1 key = keys.next();
+        Node<K1> right = buildFromSorted(keys, mid + 1, hi, level + 1, redLevel);
+        return new Node<>(key, left, right, level == redLevel ? RED : BLACK);
+    }
+
+    /**
+     * Depth of the first level a perfectly balanced tree of this size can't fill completely.
+     */
+    private static int redLevel(int size) {
+        return 31 - Integer.numberOfLeadingZeros(size + 1);
+    }
+
+    static <K1> Node<K1> min(Node<K1> node) {
+        while (!node.left().isNil()) {
+            node = node.left();
+        }
+        return node;
+    }
+
+    static <K1> Node<K1> max(Node<K1> node) {
+        while (!node.right().isNil()) {
+            node = node.right();
+        }
+        return node;
+    }
+
+    /**
+     * @return node with the greatest key less than or equal to {@code x}, {@code null} if there is none
+     */
+    static <K1> Node<K1> floor(Node<K1> node, K1 x, Comparator<K1> comparator) {
+        Node<K1> floor = null;
+        while (!node.isNil() && !node.isDoubleNil()) {
+            int compare = comparator.compare(x, node.key());
+            if (compare == 0) return node;
+            if (compare < 0) {
+                node = node.left();
+            } else {
+                floor = node;
+                node = node.right();
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * @return node with the least key greater than or equal to {@code x}, {@code null} if there is none
+     */
+    static <K1> Node<K1> ceiling(Node<K1> node, K1 x, Comparator<K1> comparator) {
+        Node<K1> ceiling = null;
+        while (!node.isNil() && !node.isDoubleNil()) {
+            int compare = comparator.compare(x, node.key());
+            if (compare == 0) return node;
+            if (compare > 0) {
+                node = node.right();
+            } else {
+                ceiling = node;
+                node = node.left();
+            }
+        }
+        return ceiling;
+    }
+
+    /**
+     * @return node with the greatest key strictly less than {@code x}, {@code null} if there is none
+     */
+    static <K1> Node<K1> lower(Node<K1> node, K1 x, Comparator<K1> comparator) {
+        Node<K1> lower = null;
+        while (!node.isNil() && !node.isDoubleNil()) {
+            if (comparator.compare(x, node.key()) <= 0) {
+                node = node.left();
+            } else {
+                lower = node;
+                node = node.right();
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * @return node with the least key strictly greater than {@code x}, {@code null} if there is none
+     */
+    static <K1> Node<K1> higher(Node<K1> node, K1 x, Comparator<K1> comparator) {
+        Node<K1> higher = null;
+        while (!node.isNil() && !node.isDoubleNil()) {
+            if (comparator.compare(x, node.key()) >= 0) {
+                node = node.right();
+            } else {
+                higher = node;
+                node = node.left();
+            }
+        }
+        return higher;
+    }
+
+    static <K1> Node<K1> find(Node<K1> node, K1 x, Comparator<K1> comparator) {
+        while (!node.isNil() && !node.isDoubleNil()) {
+            int compare = comparator.compare(x, node.key());
+            if (compare == 0) return node;
+            node = compare < 0 ? node.left() : node.right();
+        }
+        return null;
+    }
+
+    static <K1 extends Comparable<K1>> Node<K1> makeBlack(Node<K1> node) {
+        return makeBlack(null, node);
+    }
+
+    static <K1 extends Comparable<K1>> Node<K1> makeBlack(Object edit, Node<K1> node) {
+        return node.isNil() ? nil() : node.withColor(edit, BLACK);
+    }
+
+    /**
+     * Hands keys out in order and fails on the first one that is null or not greater than its predecessor.
+     */
+    private static final class SortedKeys<K> implements Iterator<K> {
+        private final Iterator<? extends K> keys;
+        private final Comparator<K> comparator;
+        private K previous;
+
+        SortedKeys(Iterator<? extends K> keys, Comparator<K> comparator) {
+            this.keys = keys;
+            this.comparator = comparator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return keys.hasNext();
+        }
+
+        @Override
+        public K next() {
+            K key = checkNotNull(keys.next());
+            if (previous != null && comparator.compare(previous, key) >= 0) {
+                throw new IllegalArgumentException("Keys aren't strictly ascending: " + previous + ", " + key);
+            }
+            previous = key;
+            return key;
+        }
     }
 
-    private static <V> V checkNotNull(V value) {
+    static <V> V checkNotNull(V value) {
         if (value == null) {
             throw new IllegalArgumentException("Null values aren't allowed");
         }
@@ -0,0 +1,154 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+import static me.collections.persistent.redblacktree.Node.Color.RED;
+import static me.collections.persistent.redblacktree.Node.nil;
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.*;
+
+/**
+ * Immutable sorted map on top of the {@link PersistentRedBlackTree} balancing engine.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings({"WeakerAccess", "unchecked"})
+public class PersistentTreeMap<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>> {
+
+    final Node<K> root;
+    private final Comparator<K> comparator;
+
+    public PersistentTreeMap() {
+        this.root = nil();
+        this.comparator = Comparator.naturalOrder();
+    }
+
+    public PersistentTreeMap(Comparator<K> comparator) {
+        this.root = nil();
+        this.comparator = checkNotNull(comparator);
+    }
+
+    PersistentTreeMap(Node<K> root, Comparator<K> comparator) {
+        this.root = root;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Putting the value (by reference) that is already mapped to the key returns this very map.
+     */
+    public PersistentTreeMap<K, V> put(K key, V value) {
+        checkNotNull(key);
+        checkNotNull(value);
+        MapNode<K, V> existing = (MapNode<K, V>) find(root, key, comparator);
+        if (existing != null) {
+            if (existing.value() == value) return this;
+            return new PersistentTreeMap<>(replace(root, key, value, comparator), comparator);
+        }
+        Node<K> newNode = new MapNode<>(key, value, nil(), nil(), RED);
+        return new PersistentTreeMap<>(makeBlack(insert(root, newNode, comparator)), comparator);
+    }
+
+    /**
+     * Removing an absent key returns this very map.
+     */
+    public PersistentTreeMap<K, V> remove(K key) {
+        if (find(root, checkNotNull(key), comparator) == null) return this;
+        return new PersistentTreeMap<>(delete(root.redden(), key, comparator), comparator);
+    }
+
+    public V get(K key) {
+        MapNode<K, V> node = (MapNode<K, V>) find(root, checkNotNull(key), comparator);
+        return node == null ? null : node.value();
+    }
+
+    public boolean containsKey(K key) {
+        return find(root, checkNotNull(key), comparator) != null;
+    }
+
+    public int size() {
+        return root.size();
+    }
+
+    public boolean isEmpty() {
+        return root.size() == 0;
+    }
+
+    public Map.Entry<K, V> firstEntry() {
+        return isEmpty() ? null : toEntry(min(root));
+    }
+
+    public Map.Entry<K, V> lastEntry() {
+        return isEmpty() ? null : toEntry(max(root));
+    }
+
+    /**
+     * @return entry with the greatest key less than or equal to {@code key}, {@code null} if there is none
+     */
+    public Map.Entry<K, V> floorEntry(K key) {
+        return toEntry(floor(root, checkNotNull(key), comparator));
+    }
+
+    /**
+     * @return entry with the least key greater than or equal to {@code key}, {@code null} if there is none
+     */
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return toEntry(ceiling(root, checkNotNull(key), comparator));
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        NodeIterator<K> iterator = new NodeIterator<>(root);
+        return new Iterator<Map.Entry<K, V>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                return toEntry(iterator.nextNode());
+            }
+        };
+    }
+
+    /**
+     * Swaps the value of an existing key, the shape and colors of the path stay the same.
+     */
+    private static <K1, V1> Node<K1> replace(Node<K1> node, K1 key, V1 value, Comparator<K1> comparator) {
+        int compare = comparator.compare(key, node.key());
+        if (compare < 0) {
+            return node.withLeft(replace(node.left(), key, value, comparator));
+        } else if (compare > 0) {
+            return node.withRight(replace(node.right(), key, value, comparator));
+        } else {
+            return ((MapNode<K1, V1>) node).withValue(value);
+        }
+    }
+
+    private static <K1, V1> Map.Entry<K1, V1> toEntry(Node<K1> node) {
+        return node == null ? null : ((MapNode<K1, V1>) node).toEntry();
+    }
+
+    @Override
+    public String toString() {
+        return "PersistentTreeMap{" +
+                "root=" + root +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final PersistentTreeMap that = (PersistentTreeMap) o;
+        return Objects.equals(root, that.root);
+    }
+
+    @Override
+    public int hashCode() {
+        return root.hashCode();
+    }
+}
@@ -0,0 +1,83 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.Arrays;
+
+/**
+ * Search path of the running insert or delete, with the direction taken at every node. Trees of node objects push
+ * the nodes, {@link OffHeapLongRedBlackTree} pushes arena indexes. The trees are immutable and may be updated from
+ * many threads, so each thread reuses its own instance. A red-black tree of {@code Integer.MAX_VALUE} keys is less
+ * than 64 levels high, so the arrays never grow.
+ * <p>
+ * Shared by every red-black tree of the package, so that the walk back up to the root stays the same for all of them.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+final class SearchPath {
+    static final byte LEFT = 0, RIGHT = 1, LEFT_NO_ROTATE = 2, REPLACE = 3;
+    private static final int MAX_HEIGHT = 64;
+    private static final ThreadLocal<SearchPath> CURRENT = ThreadLocal.withInitial(SearchPath::new);
+
+    private final Object[] nodes = new Object[MAX_HEIGHT];
+    private final int[] indexes = new int[MAX_HEIGHT];
+    private final byte[] directions = new byte[MAX_HEIGHT];
+    // node removed by the last removeMin, an object or an arena index depending on the tree
+    Object found;
+    int foundIndex;
+    int depth;
+    byte direction;
+
+    private SearchPath() {
+    }
+
+    /**
+     * @return this thread's path, emptied of whatever an operation that failed half way left behind
+     */
+    static SearchPath get() {
+        SearchPath path = CURRENT.get();
+        path.clear();
+        path.found = null;
+        return path;
+    }
+
+    void clear() {
+        if (depth > 0) {
+            Arrays.fill(nodes, 0, depth, null);
+            depth = 0;
+        }
+    }
+
+    void push(Object node, byte direction) {
+        nodes[depth] = node;
+        directions[depth++] = direction;
+    }
+
+    void push(int node, byte direction) {
+        indexes[depth] = node;
+        directions[depth++] = direction;
+    }
+
+    /**
+     * Removes the deepest node and leaves the direction taken from it in {@link #direction}.
+     */
+    @SuppressWarnings("unchecked")
+    <N> N pop() {
+        N node = (N) nodes[--depth];
+        nodes[depth] = null;
+        direction = directions[depth];
+        return node;
+    }
+
+    /**
+     * Same as {@link #pop()} for a path of arena indexes.
+     */
+    int popIndex() {
+        direction = directions[--depth];
+        return indexes[depth];
+    }
+
+    @SuppressWarnings("unchecked")
+    <N> N found() {
+        return (N) found;
+    }
+}
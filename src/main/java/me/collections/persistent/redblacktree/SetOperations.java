@@ -0,0 +1,317 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static me.collections.persistent.redblacktree.Node.Color.BLACK;
+import static me.collections.persistent.redblacktree.Node.Color.RED;
+import static me.collections.persistent.redblacktree.Node.nil;
+
+/**
+ * Join-based set algebra, see Blelloch, Ferizovic, Sun "Just Join for Parallel Ordered Sets".
+ * Every operation works on steady-state trees (no double-black nodes) and returns one, the root may be red.
+ * Subtrees that end up on one side of a split are reused as is, so the results share structure with both inputs.
+ * <p>
+ * Black heights are passed along with the trees instead of being recomputed, so a join costs as much as the
+ * difference of the heights it joins, which gives O(m log(n / m + 1)) for union, intersection and difference.
+ * An instance is a single-threaded context of one operation: every method leaves the black height of the tree it
+ * returns in {@link #height}.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+final class SetOperations<K> {
+
+    private final Comparator<K> comparator;
+    int height;
+
+    SetOperations(Comparator<K> comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Result of {@link #split}: keys less than the pivot, the node holding the pivot ({@code null} if absent) and
+     * keys greater than the pivot, each side with its black height.
+     */
+    static final class Split<K> {
+        Node<K> left, right;
+        int leftHeight, rightHeight;
+        Node<K> middle;
+
+        Split(Node<K> left, int leftHeight, Node<K> middle, Node<K> right, int rightHeight) {
+            this.left = left;
+            this.leftHeight = leftHeight;
+            this.middle = middle;
+            this.right = right;
+            this.rightHeight = rightHeight;
+        }
+    }
+
+    static <K> Node<K> union(Node<K> a, Node<K> b, Comparator<K> comparator) {
+        return new SetOperations<>(comparator).union(a, blackHeight(a), b, blackHeight(b));
+    }
+
+    static <K> Node<K> intersection(Node<K> a, Node<K> b, Comparator<K> comparator) {
+        return new SetOperations<>(comparator).intersection(a, blackHeight(a), b, blackHeight(b));
+    }
+
+    /**
+     * @return keys of {@code a} that are absent in {@code b}
+     */
+    static <K> Node<K> difference(Node<K> a, Node<K> b, Comparator<K> comparator) {
+        return new SetOperations<>(comparator).difference(a, blackHeight(a), b, blackHeight(b));
+    }
+
+    /**
+     * @return keys less than {@code to}, or less than or equal to it if {@code inclusive}
+     */
+    static <K> Node<K> head(Node<K> node, K to, boolean inclusive, Comparator<K> comparator) {
+        SetOperations<K> operations = new SetOperations<>(comparator);
+        Split<K> split = operations.split(node, blackHeight(node), to);
+        if (inclusive && split.middle != null) {
+            return operations.join(split.left, split.leftHeight, split.middle, nil(), 0);
+        }
+        return split.left;
+    }
+
+    /**
+     * @return keys greater than {@code from}, or greater than or equal to it if {@code inclusive}
+     */
+    static <K> Node<K> tail(Node<K> node, K from, boolean inclusive, Comparator<K> comparator) {
+        SetOperations<K> operations = new SetOperations<>(comparator);
+        Split<K> split = operations.split(node, blackHeight(node), from);
+        if (inclusive && split.middle != null) {
+            return operations.join(nil(), 0, split.middle, split.right, split.rightHeight);
+        }
+        return split.right;
+    }
+
+    enum Kind {
+        UNION, DIFFERENCE
+    }
+
+    static <K> Node<K> parallel(Kind kind, Node<K> a, Node<K> b, Comparator<K> comparator,
+                                ForkJoinPool pool, int cutoff) {
+        return pool.invoke(new ParallelTask<>(kind, comparator, cutoff, a, blackHeight(a), b, blackHeight(b)));
+    }
+
+    /**
+     * Runs the same recursion as the sequential operation, but forks the left half of every split while both
+     * inputs together hold more than {@code cutoff} keys. Halves are independent subtrees, so tasks share nothing
+     * but immutable nodes.
+     */
+    private static final class ParallelTask<K> extends RecursiveTask<Node<K>> {
+        private final Kind kind;
+        private final Comparator<K> comparator;
+        private final int cutoff;
+        private final Node<K> a, b;
+        private final int aHeight, bHeight;
+        // black height of the result, published to the forking task by join()
+        private int height;
+
+        ParallelTask(Kind kind, Comparator<K> comparator, int cutoff,
+                     Node<K> a, int aHeight, Node<K> b, int bHeight) {
+            this.kind = kind;
+            this.comparator = comparator;
+            this.cutoff = cutoff;
+            this.a = a;
+            this.aHeight = aHeight;
+            this.b = b;
+            this.bHeight = bHeight;
+        }
+
+        @Override
+        protected Node<K> compute() {
+            SetOperations<K> operations = new SetOperations<>(comparator);
+            Node<K> result;
+            if (a == b || isEmpty(a) || isEmpty(b) || a.size() + b.size() <= cutoff) {
+                result = kind == Kind.UNION
+                        ? operations.union(a, aHeight, b, bHeight)
+                        : operations.difference(a, aHeight, b, bHeight);
+            } else {
+                int childHeight = childHeight(b, bHeight);
+                Split<K> split = operations.split(a, aHeight, b.key());
+                ParallelTask<K> left = new ParallelTask<>(kind, comparator, cutoff,
+                        split.left, split.leftHeight, b.left(), childHeight);
+                ParallelTask<K> right = new ParallelTask<>(kind, comparator, cutoff,
+                        split.right, split.rightHeight, b.right(), childHeight);
+                left.fork();
+                Node<K> rightResult = right.compute();
+                Node<K> leftResult = left.join();
+                result = kind == Kind.UNION
+                        ? operations.join(leftResult, left.height, b, rightResult, right.height)
+                        : operations.join(leftResult, left.height, rightResult, right.height);
+            }
+            height = operations.height;
+            return result;
+        }
+    }
+
+    Node<K> union(Node<K> a, int aHeight, Node<K> b, int bHeight) {
+        if (a == b || isEmpty(b)) return result(a, aHeight);
+        if (isEmpty(a)) return result(b, bHeight);
+        int childHeight = childHeight(b, bHeight);
+        Split<K> split = split(a, aHeight, b.key());
+        Node<K> left = union(split.left, split.leftHeight, b.left(), childHeight);
+        int leftHeight = height;
+        Node<K> right = union(split.right, split.rightHeight, b.right(), childHeight);
+        return join(left, leftHeight, b, right, height);
+    }
+
+    Node<K> intersection(Node<K> a, int aHeight, Node<K> b, int bHeight) {
+        if (a == b) return result(a, aHeight);
+        if (isEmpty(a) || isEmpty(b)) return result(nil(), 0);
+        int childHeight = childHeight(b, bHeight);
+        Split<K> split = split(a, aHeight, b.key());
+        Node<K> left = intersection(split.left, split.leftHeight, b.left(), childHeight);
+        int leftHeight = height;
+        Node<K> right = intersection(split.right, split.rightHeight, b.right(), childHeight);
+        return split.middle == null
+                ? join(left, leftHeight, right, height)
+                : join(left, leftHeight, split.middle, right, height);
+    }
+
+    Node<K> difference(Node<K> a, int aHeight, Node<K> b, int bHeight) {
+        if (a == b) return result(nil(), 0);
+        if (isEmpty(a) || isEmpty(b)) return result(a, aHeight);
+        int childHeight = childHeight(b, bHeight);
+        Split<K> split = split(a, aHeight, b.key());
+        Node<K> left = difference(split.left, split.leftHeight, b.left(), childHeight);
+        int leftHeight = height;
+        Node<K> right = difference(split.right, split.rightHeight, b.right(), childHeight);
+        return join(left, leftHeight, right, height);
+    }
+
+    Split<K> split(Node<K> node, int nodeHeight, K x) {
+        if (isEmpty(node)) return new Split<>(nil(), 0, null, nil(), 0);
+        int childHeight = childHeight(node, nodeHeight);
+        int compare = comparator.compare(x, node.key());
+        if (compare == 0) {
+            return new Split<>(node.left(), childHeight, node, node.right(), childHeight);
+        } else if (compare < 0) {
+            Split<K> split = split(node.left(), childHeight, x);
+            if (split.right == node.left() && isEmpty(split.left)) {
+                // x precedes every key, the whole subtree goes right as is
+                split.right = node;
+                split.rightHeight = nodeHeight;
+                return split;
+            }
+            split.right = join(split.right, split.rightHeight, node, node.right(), childHeight);
+            split.rightHeight = height;
+            return split;
+        } else {
+            Split<K> split = split(node.right(), childHeight, x);
+            if (split.left == node.right() && isEmpty(split.right)) {
+                split.left = node;
+                split.leftHeight = nodeHeight;
+                return split;
+            }
+            split.left = join(node.left(), childHeight, node, split.left, split.leftHeight);
+            split.leftHeight = height;
+            return split;
+        }
+    }
+
+    /**
+     * Joins two trees where all keys of {@code left} are less than all keys of {@code right}.
+     */
+    Node<K> join(Node<K> left, int leftHeight, Node<K> right, int rightHeight) {
+        if (isEmpty(left)) return result(right, rightHeight);
+        if (isEmpty(right)) return result(left, leftHeight);
+        Split<K> last = splitLast(left, leftHeight);
+        return join(last.left, last.leftHeight, last.middle, right, rightHeight);
+    }
+
+    /**
+     * Joins two trees around the key of {@code middle}, whose own links are ignored: all keys of {@code left} are
+     * less than it and all keys of {@code right} are greater.
+     */
+    Node<K> join(Node<K> left, int leftHeight, Node<K> middle, Node<K> right, int rightHeight) {
+        if (left.isRed()) {
+            left = left.withColor(BLACK);
+            leftHeight++;
+        }
+        if (right.isRed()) {
+            right = right.withColor(BLACK);
+            rightHeight++;
+        }
+        if (leftHeight > rightHeight) {
+            Node<K> joined = joinRight(left, leftHeight, middle, right, rightHeight);
+            if (joined.isRed() && joined.right().isRed()) {
+                return result(joined.withColor(BLACK), leftHeight + 1);
+            }
+            return result(joined, leftHeight);
+        } else if (leftHeight < rightHeight) {
+            Node<K> joined = joinLeft(left, leftHeight, middle, right, rightHeight);
+            if (joined.isRed() && joined.left().isRed()) {
+                return result(joined.withColor(BLACK), rightHeight + 1);
+            }
+            return result(joined, rightHeight);
+        } else {
+            return result(middle.with(left, right, RED), leftHeight);
+        }
+    }
+
+    /**
+     * Hangs {@code right} off the right spine of {@code node} at the first black node of the same black height.
+     * The result has the black height of {@code node} and may only break the red rule at its root.
+     */
+    private static <K> Node<K> joinRight(Node<K> node, int nodeHeight, Node<K> middle, Node<K> right, int rightHeight) {
+        if (nodeHeight == rightHeight && node.isBlack()) {
+            return middle.with(node, right, RED);
+        }
+        Node<K> child = joinRight(node.right(), childHeight(node, nodeHeight), middle, right, rightHeight);
+        if (node.isBlack() && child.isRed() && child.right().isRed()) {
+            return child.with(node.with(node.left(), child.left(), BLACK), child.right().withColor(BLACK), RED);
+        }
+        return node.withRight(child);
+    }
+
+    private static <K> Node<K> joinLeft(Node<K> left, int leftHeight, Node<K> middle, Node<K> node, int nodeHeight) {
+        if (nodeHeight == leftHeight && node.isBlack()) {
+            return middle.with(left, node, RED);
+        }
+        Node<K> child = joinLeft(left, leftHeight, middle, node.left(), childHeight(node, nodeHeight));
+        if (node.isBlack() && child.isRed() && child.left().isRed()) {
+            return child.with(child.left().withColor(BLACK), node.with(child.right(), node.right(), BLACK), RED);
+        }
+        return node.withLeft(child);
+    }
+
+    /**
+     * @return the greatest node as {@code middle} and the rest of the tree as {@code left}
+     */
+    private Split<K> splitLast(Node<K> node, int nodeHeight) {
+        int childHeight = childHeight(node, nodeHeight);
+        if (isEmpty(node.right())) {
+            return new Split<>(node.left(), childHeight, node, nil(), 0);
+        }
+        Split<K> last = splitLast(node.right(), childHeight);
+        last.left = join(node.left(), childHeight, node, last.left, last.leftHeight);
+        last.leftHeight = height;
+        return last;
+    }
+
+    private Node<K> result(Node<K> node, int nodeHeight) {
+        height = nodeHeight;
+        return node;
+    }
+
+    private static int childHeight(Node<?> node, int nodeHeight) {
+        return node.isBlack() ? nodeHeight - 1 : nodeHeight;
+    }
+
+    static int blackHeight(Node<?> node) {
+        int height = 0;
+        while (!isEmpty(node)) {
+            if (node.isBlack()) height++;
+            node = node.left();
+        }
+        return height;
+    }
+
+    static boolean isEmpty(Node<?> node) {
+        return node.size() == 0;
+    }
+}
@@ -0,0 +1,122 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.checkNotNull;
+
+/**
+ * Latest version of a {@link PersistentRedBlackTree} shared between threads. Readers take {@link #get()}, a single
+ * volatile read that never waits, and then work with an immutable snapshot. Writers compute the next version off
+ * the current one and install it with a compare-and-set on the root.
+ * <p>
+ * A writer that loses the race has thrown away its O(log n) path copy. Before trying again it backs off for a
+ * random time, doubled on every further loss, so that under contention one writer at a time gets through instead of
+ * all of them copying paths that are doomed. Updates that change nothing don't write at all.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings({"WeakerAccess", "unchecked"})
+public final class SharedRedBlackTree<K extends Comparable<K>> {
+
+    private static final AtomicReferenceFieldUpdater<SharedRedBlackTree, PersistentRedBlackTree> CURRENT =
+            AtomicReferenceFieldUpdater.newUpdater(SharedRedBlackTree.class, PersistentRedBlackTree.class, "current");
+
+    private static final long MIN_BACKOFF_NANOS = 1_000, MAX_BACKOFF_NANOS = 1_000_000;
+
+    private volatile PersistentRedBlackTree<K> current;
+
+    public SharedRedBlackTree() {
+        this(new PersistentRedBlackTree<>());
+    }
+
+    public SharedRedBlackTree(Comparator<K> comparator) {
+        this(new PersistentRedBlackTree<>(comparator));
+    }
+
+    public SharedRedBlackTree(PersistentRedBlackTree<K> initial) {
+        this.current = checkNotNull(initial);
+    }
+
+    /**
+     * @return the latest version, it never changes afterwards
+     */
+    public PersistentRedBlackTree<K> get() {
+        return current;
+    }
+
+    /**
+     * Atomically replaces the latest version with {@code function} applied to it. The function may be called more
+     * than once, so it should be free of side effects.
+     *
+     * @return the installed version
+     */
+    public PersistentRedBlackTree<K> updateAndGet(UnaryOperator<PersistentRedBlackTree<K>> function) {
+        long backoff = 0;
+        while (true) {
+            PersistentRedBlackTree<K> tree = current;
+            PersistentRedBlackTree<K> updated = checkNotNull(function.apply(tree));
+            if (updated == tree || CURRENT.compareAndSet(this, tree, updated)) return updated;
+            backoff = backOff(backoff);
+        }
+    }
+
+    /**
+     * Same as {@link #updateAndGet(UnaryOperator)}, but returns the version the function was applied to.
+     */
+    public PersistentRedBlackTree<K> getAndUpdate(UnaryOperator<PersistentRedBlackTree<K>> function) {
+        long backoff = 0;
+        while (true) {
+            PersistentRedBlackTree<K> tree = current;
+            PersistentRedBlackTree<K> updated = checkNotNull(function.apply(tree));
+            if (updated == tree || CURRENT.compareAndSet(this, tree, updated)) return tree;
+            backoff = backOff(backoff);
+        }
+    }
+
+    boolean compareAndSet(PersistentRedBlackTree<K> expected, PersistentRedBlackTree<K> updated) {
+        return CURRENT.compareAndSet(this, expected, updated);
+    }
+
+    /**
+     * @return false if the key was already there
+     */
+    public boolean add(K x) {
+        checkNotNull(x);
+        return !getAndUpdate(tree -> tree.add(x)).contains(x);
+    }
+
+    /**
+     * @return false if there was no such key
+     */
+    public boolean remove(K x) {
+        checkNotNull(x);
+        return getAndUpdate(tree -> tree.remove(x)).contains(x);
+    }
+
+    public boolean contains(K x) {
+        return current.contains(x);
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * Yields after the first lost race, then parks for a random time below an exponentially growing bound.
+     *
+     * @return the next bound
+     */
+    private static long backOff(long backoff) {
+        if (backoff == 0) {
+            Thread.yield();
+            return MIN_BACKOFF_NANOS;
+        }
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoff));
+        return Math.min(2 * backoff, MAX_BACKOFF_NANOS);
+    }
+}
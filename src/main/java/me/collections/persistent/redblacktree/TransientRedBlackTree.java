@@ -0,0 +1,102 @@
+package me.collections.persistent.redblacktree;
+
+import me.collections.util.Pair;
+
+import java.util.Comparator;
+
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.*;
+
+/**
+ * Mutable view of a {@link PersistentRedBlackTree} for batch updates, see {@link PersistentRedBlackTree#asTransient()}.
+ * Nodes created by this instance are updated in place, nodes shared with the source tree are copied on first touch
+ * and never changed. {@link #persistent()} closes the edit session and hands the result out as an ordinary
+ * persistent tree, after that the transient can't be used anymore.
+ * <p>
+ * Not thread-safe, it's meant to be confined to the thread that applies the batch.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TransientRedBlackTree<K extends Comparable<K>> {
+
+    private final Comparator<K> comparator;
+    private Node<K> root;
+    private Object edit = new Object();
+
+    TransientRedBlackTree(Node<K> root, Comparator<K> comparator) {
+        this.root = root;
+        this.comparator = comparator;
+    }
+
+    public TransientRedBlackTree<K> add(K x) {
+        Object edit = ensureEditable();
+        int size = root.size();
+        Node<K> newRoot = insert(edit, root, checkNotNull(x), comparator);
+        // an owned root is updated in place, so only the size tells whether the key was added
+        if (newRoot.size() != size) {
+            root = makeBlack(edit, newRoot);
+        }
+        return this;
+    }
+
+    public TransientRedBlackTree<K> addAll(Iterable<? extends K> keys) {
+        for (K key : keys) {
+            add(key);
+        }
+        return this;
+    }
+
+    public TransientRedBlackTree<K> remove(K x) {
+        Object edit = ensureEditable();
+        if (find(root, checkNotNull(x), comparator) != null) {
+            root = delete(edit, root.redden(edit), x, comparator);
+        }
+        return this;
+    }
+
+    public TransientRedBlackTree<K> removeAll(Iterable<? extends K> keys) {
+        for (K key : keys) {
+            remove(key);
+        }
+        return this;
+    }
+
+    /**
+     * Same as {@link PersistentRedBlackTree#pollMin()}, the tree is left in the shape the persistent one would have.
+     *
+     * @return the removed smallest key
+     */
+    public K pollMin() {
+        Object edit = ensureEditable();
+        if (root.isNil()) {
+            throw new IllegalStateException("Empty tree");
+        }
+        Pair<K, Node<K>> pair = minRemove(edit, root.redden(edit));
+        root = pair.getValue();
+        return pair.getKey();
+    }
+
+    public boolean contains(K x) {
+        ensureEditable();
+        return find(root, checkNotNull(x), comparator) != null;
+    }
+
+    public int size() {
+        ensureEditable();
+        return root.size();
+    }
+
+    public PersistentRedBlackTree<K> persistent() {
+        ensureEditable();
+        edit = null;
+        return new PersistentRedBlackTree<>(root, comparator);
+    }
+
+    private Object ensureEditable() {
+        if (edit == null) {
+            throw new IllegalStateException("Transient tree used after persistent() call");
+        }
+        return edit;
+    }
+}
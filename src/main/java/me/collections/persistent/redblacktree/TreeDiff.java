@@ -0,0 +1,111 @@
+package me.collections.persistent.redblacktree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/**
+ * Merge of two in-order walks that skips shared subtrees, see {@link PersistentRedBlackTree#diff}. Each walk is a
+ * stack of what is left of its tree from left to right: whole subtrees not entered yet and single keys. When both
+ * stacks start with the same node, its keys are the next keys of both trees, so the node is dropped from both
+ * without being entered. Otherwise the larger subtree on top is split into its left subtree, its key and its right
+ * subtree, until there are two keys to compare.
+ * <p>
+ * Versions made from one another by path copying share every subtree off the copied paths, so the walks only enter
+ * the nodes around the changed keys: O(d log n) for d changed keys instead of O(n).
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings("unchecked")
+final class TreeDiff {
+
+    private TreeDiff() {
+    }
+
+    static <K> void diff(Node<K> older, Node<K> newer, Comparator<K> comparator,
+                         Consumer<? super K> added, Consumer<? super K> removed) {
+        Walk<K> a = new Walk<>(older), b = new Walk<>(newer);
+        while (!a.isEmpty() && !b.isEmpty()) {
+            if (!a.atKey() && !b.atKey() && a.top() == b.top()) {
+                a.pop();
+                b.pop();
+            } else if (!a.atKey() && (b.atKey() || a.top().size() >= b.top().size())) {
+                a.enter();
+            } else if (!b.atKey()) {
+                b.enter();
+            } else {
+                int compare = comparator.compare(a.top().key(), b.top().key());
+                if (compare <= 0) {
+                    if (compare < 0) removed.accept(a.top().key());
+                    a.pop();
+                }
+                if (compare >= 0) {
+                    if (compare > 0) added.accept(b.top().key());
+                    b.pop();
+                }
+            }
+        }
+        a.drain(removed);
+        b.drain(added);
+    }
+
+    private static final class Walk<K> {
+        private Node<K>[] nodes = new Node[32];
+        // whether the node on the same level stands for its key only, its subtrees are on the stack already
+        private boolean[] keys = new boolean[32];
+        private int depth;
+
+        Walk(Node<K> root) {
+            push(root, false);
+        }
+
+        boolean isEmpty() {
+            return depth == 0;
+        }
+
+        Node<K> top() {
+            return nodes[depth - 1];
+        }
+
+        boolean atKey() {
+            return keys[depth - 1];
+        }
+
+        void pop() {
+            nodes[--depth] = null;
+        }
+
+        /**
+         * Replaces the subtree on top with its left subtree, its key and its right subtree.
+         */
+        void enter() {
+            Node<K> node = top();
+            pop();
+            push(node.right(), false);
+            push(node, true);
+            push(node.left(), false);
+        }
+
+        void drain(Consumer<? super K> consumer) {
+            while (!isEmpty()) {
+                if (atKey()) {
+                    consumer.accept(top().key());
+                    pop();
+                } else {
+                    enter();
+                }
+            }
+        }
+
+        private void push(Node<K> node, boolean key) {
+            if (!key && node.isNil()) return;
+            if (depth == nodes.length) {
+                nodes = Arrays.copyOf(nodes, depth * 2);
+                keys = Arrays.copyOf(keys, depth * 2);
+            }
+            nodes[depth] = node;
+            keys[depth++] = key;
+        }
+    }
+}
@@ -11,10 +11,77 @@ import java.util.List;
 public class Validator {
 
     public static <K extends Comparable<K>> void validate(PersistentRedBlackTree<K> tree) {
-        if (tree.root.isNil()) return;
-        checkRedNode(tree.root);
-        checkBlackHeight(tree.root);
-        checkBST(tree.root);
+        validate(tree.root);
+    }
+
+    public static <K extends Comparable<K>> void validate(PersistentTreeMap<K, ?> map) {
+        validate(map.root);
+    }
+
+    public static void validate(PersistentLongRedBlackTree tree) {
+        if (checkLongNode(tree.root, Long.MIN_VALUE, Long.MAX_VALUE)[1] != tree.size()) {
+            throw new IllegalStateException("Wrong size " + tree.size() + ": " + tree.root);
+        }
+    }
+
+    /**
+     * @return black height and number of keys of the subtree, whose keys must lie within [min, max]
+     */
+    private static int[] checkLongNode(LongNode node, long min, long max) {
+        if (node.isNil()) return new int[]{1, 0};
+        if (node.isDoubleBlack()) {
+            throw new IllegalStateException("Double black node: " + node);
+        }
+        if (node.key < min || node.key > max) {
+            throw new IllegalStateException("Not BST: " + node);
+        }
+        if (node.isRed() && (node.left.isRed() || node.right.isRed())) {
+            throw new IllegalStateException("Red parent and child: " + node);
+        }
+        int[] left = checkLongNode(node.left, min, node.key - 1);
+        int[] right = checkLongNode(node.right, node.key + 1, max);
+        if (left[0] != right[0]) {
+            throw new IllegalStateException("Black heights are different: " + node);
+        }
+        return new int[]{left[0] + (node.isBlack() ? 1 : 0), left[1] + right[1] + 1};
+    }
+
+    public static void validate(OffHeapLongRedBlackTree tree) {
+        if (checkArenaNode(tree.arena(), tree.root, Long.MIN_VALUE, Long.MAX_VALUE)[1] != tree.size()) {
+            throw new IllegalStateException("Wrong size " + tree.size() + ": " + tree.root);
+        }
+    }
+
+    /**
+     * Same as {@link #checkLongNode(LongNode, long, long)} for a node of an arena.
+     */
+    private static int[] checkArenaNode(LongArena arena, int node, long min, long max) {
+        if (node == LongArena.NIL) return new int[]{1, 0};
+        long key = arena.key(node);
+        if (arena.color(node) == LongArena.DOUBLE_BLACK) {
+            throw new IllegalStateException("Double black node: " + node);
+        }
+        if (key < min || key > max) {
+            throw new IllegalStateException("Not BST: " + node);
+        }
+        if (arena.color(node) == LongArena.RED && (arena.color(arena.left(node)) == LongArena.RED
+                || arena.color(arena.right(node)) == LongArena.RED)) {
+            throw new IllegalStateException("Red parent and child: " + node);
+        }
+        int[] left = checkArenaNode(arena, arena.left(node), min, key - 1);
+        int[] right = checkArenaNode(arena, arena.right(node), key + 1, max);
+        if (left[0] != right[0]) {
+            throw new IllegalStateException("Black heights are different: " + node);
+        }
+        return new int[]{left[0] + (arena.color(node) == LongArena.BLACK ? 1 : 0), left[1] + right[1] + 1};
+    }
+
+    private static <K extends Comparable<K>> void validate(Node<K> root) {
+        if (root.isNil()) return;
+        checkRedNode(root);
+        checkBlackHeight(root);
+        checkBST(root);
+        checkSize(root);
     }
 
     static void checkRedNode(Node node) {
@@ -36,6 +103,15 @@ public class Validator {
         return lbh + (node.isBlack() ? 1 : 0);
     }
 
+    static int checkSize(Node node) {
+        if (node.isNil()) return 0;
+        int size = 1 + checkSize(node.left()) + checkSize(node.right());
+        if (size != node.size()) {
+            throw new IllegalStateException("Wrong size " + node.size() + ", expected " + size + ": " + node);
+        }
+        return size;
+    }
+
     static <K extends Comparable<K>> List<K> checkBST(Node<K> node) {
         K min = node.key(), max = node.key();
         if (!node.left().isNil()) {
@@ -0,0 +1,266 @@
+package me.collections.persistent.redblacktree;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+
+import static me.collections.persistent.redblacktree.PersistentRedBlackTree.checkNotNull;
+
+/**
+ * History of {@link PersistentRedBlackTree} versions with time-travel reads. Every {@link #commit} gets the next
+ * version id, counting from zero, and {@link #at(long)} returns the tree of a retained version in O(1).
+ * <p>
+ * The oldest versions are dropped on commit once any limit set by {@link #retainLast(int)}, {@link #retainFor(Duration)}
+ * or {@link #retainWithin(long)} is exceeded. The latest version is always kept. Memory is accounted exactly for the
+ * nodes: each node reachable from a retained version is reference-counted by identity, so a node shared by many
+ * versions is counted once. Committing a version costs its new nodes only, which is the copied paths for versions
+ * made by updates. Bytes are estimated at {@value #NODE_BYTES} per node, the node layout with compressed oops.
+ * Keys aren't counted.
+ * <p>
+ * Methods are synchronized.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+@SuppressWarnings({"WeakerAccess", "unchecked"})
+public final class VersionRegistry<K extends Comparable<K>> {
+
+    static final int NODE_BYTES = 32;
+
+    private final Clock clock;
+    private int maxVersions = Integer.MAX_VALUE;
+    private long maxAgeMillis = Long.MAX_VALUE;
+    private long maxBytes = Long.MAX_VALUE;
+
+    // retained versions from oldest to latest in a ring, version first + i is at (head + i) % trees.length
+    private PersistentRedBlackTree<K>[] trees = new PersistentRedBlackTree[16];
+    private long[] commitMillis = new long[16];
+    private int head, count;
+    private long first;
+
+    // number of references to each node from retained roots and from nodes in this map
+    private final Map<Node<K>, Integer> references = new IdentityHashMap<>();
+    // nodes of the latest version, built on demand for sharing reports
+    private Set<Node<K>> latestNodes;
+
+    public VersionRegistry() {
+        this(Clock.systemUTC());
+    }
+
+    VersionRegistry(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Keeps at most {@code versions} latest versions.
+     */
+    public synchronized VersionRegistry<K> retainLast(int versions) {
+        if (versions < 1) {
+            throw new IllegalArgumentException("At least one version is retained: " + versions);
+        }
+        maxVersions = versions;
+        trim();
+        return this;
+    }
+
+    /**
+     * Drops versions committed longer than {@code age} ago.
+     */
+    public synchronized VersionRegistry<K> retainFor(Duration age) {
+        if (checkNotNull(age).isNegative()) {
+            throw new IllegalArgumentException("Negative age: " + age);
+        }
+        maxAgeMillis = age.toMillis();
+        trim();
+        return this;
+    }
+
+    /**
+     * Drops versions while the retained nodes take more than {@code bytes}.
+     */
+    public synchronized VersionRegistry<K> retainWithin(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Negative budget: " + bytes);
+        }
+        maxBytes = bytes;
+        trim();
+        return this;
+    }
+
+    /**
+     * @return id of the new version
+     */
+    public synchronized long commit(PersistentRedBlackTree<K> tree) {
+        checkNotNull(tree);
+        if (count == trees.length) {
+            grow();
+        }
+        int slot = (head + count) % trees.length;
+        trees[slot] = tree;
+        commitMillis[slot] = clock.millis();
+        count++;
+        retain(tree.root);
+        latestNodes = null;
+        trim();
+        return first + count - 1;
+    }
+
+    /**
+     * @return the tree committed as {@code version}
+     * @throws NoSuchElementException if the version was dropped or not committed yet
+     */
+    public synchronized PersistentRedBlackTree<K> at(long version) {
+        return trees[slot(version)];
+    }
+
+    /**
+     * @return id of the oldest retained version
+     */
+    public synchronized long oldest() {
+        checkNotEmpty();
+        return first;
+    }
+
+    /**
+     * @return id of the latest version
+     */
+    public synchronized long latest() {
+        checkNotEmpty();
+        return first + count - 1;
+    }
+
+    /**
+     * @return number of retained versions
+     */
+    public synchronized int retained() {
+        return count;
+    }
+
+    /**
+     * @return number of distinct nodes reachable from the retained versions
+     */
+    public synchronized long retainedNodes() {
+        return references.size();
+    }
+
+    /**
+     * @return estimated heap taken by the retained nodes, keys aren't counted
+     */
+    public synchronized long retainedBytes() {
+        return (long) NODE_BYTES * references.size();
+    }
+
+    /**
+     * Nodes of a version that are reachable from the latest one are found by walking the version down to the first
+     * shared node, whose whole subtree is then shared too.
+     *
+     * @return number of nodes {@code version} shares with the latest version
+     */
+    public synchronized int sharedWithLatest(long version) {
+        Node<K> root = trees[slot(version)].root;
+        if (latestNodes == null) {
+            latestNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+            collect(trees[slot(first + count - 1)].root, latestNodes);
+        }
+        int shared = 0;
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        if (!root.isNil()) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<K> node = stack.pop();
+            if (latestNodes.contains(node)) {
+                shared += node.size();
+                continue;
+            }
+            if (!node.left().isNil()) stack.push(node.left());
+            if (!node.right().isNil()) stack.push(node.right());
+        }
+        return shared;
+    }
+
+    /**
+     * @return retained version ids in ascending order mapped to the number of nodes each shares with the latest one
+     */
+    public synchronized Map<Long, Integer> sharedWithLatest() {
+        Map<Long, Integer> report = new LinkedHashMap<>();
+        for (long version = first; version < first + count; version++) {
+            report.put(version, sharedWithLatest(version));
+        }
+        return report;
+    }
+
+    private void trim() {
+        long now = clock.millis();
+        while (count > 1 && (count > maxVersions
+                || now - commitMillis[head] > maxAgeMillis
+                || (long) NODE_BYTES * references.size() > maxBytes)) {
+            release(trees[head].root);
+            trees[head] = null;
+            head = (head + 1) % trees.length;
+            count--;
+            first++;
+        }
+    }
+
+    private void retain(Node<K> root) {
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        if (!root.isNil()) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<K> node = stack.pop();
+            // an already retained node holds its children already
+            if (references.merge(node, 1, Integer::sum) == 1) {
+                if (!node.left().isNil()) stack.push(node.left());
+                if (!node.right().isNil()) stack.push(node.right());
+            }
+        }
+    }
+
+    private void release(Node<K> root) {
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        if (!root.isNil()) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<K> node = stack.pop();
+            if (references.merge(node, -1, Integer::sum) == 0) {
+                references.remove(node);
+                if (!node.left().isNil()) stack.push(node.left());
+                if (!node.right().isNil()) stack.push(node.right());
+            }
+        }
+    }
+
+    private static <K> void collect(Node<K> root, Set<Node<K>> nodes) {
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        if (!root.isNil()) stack.push(root);
+        while (!stack.isEmpty()) {
+            Node<K> node = stack.pop();
+            nodes.add(node);
+            if (!node.left().isNil()) stack.push(node.left());
+            if (!node.right().isNil()) stack.push(node.right());
+        }
+    }
+
+    private void grow() {
+        PersistentRedBlackTree<K>[] grownTrees = new PersistentRedBlackTree[trees.length * 2];
+        long[] grownMillis = new long[trees.length * 2];
+        for (int i = 0; i < count; i++) {
+            grownTrees[i] = trees[(head + i) % trees.length];
+            grownMillis[i] = commitMillis[(head + i) % trees.length];
+        }
+        trees = grownTrees;
+        commitMillis = grownMillis;
+        head = 0;
+    }
+
+    private int slot(long version) {
+        if (version < first || version >= first + count) {
+            throw new NoSuchElementException("Version " + version + " isn't retained, versions: "
+                    + (count == 0 ? "none" : first + ".." + (first + count - 1)));
+        }
+        return (int) ((head + version - first) % trees.length);
+    }
+
+    private void checkNotEmpty() {
+        if (count == 0) {
+            throw new NoSuchElementException("No versions committed");
+        }
+    }
+}
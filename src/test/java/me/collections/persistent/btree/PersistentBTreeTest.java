@@ -0,0 +1,231 @@
+package me.collections.persistent.btree;
+
+import me.collections.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static me.collections.persistent.btree.Node.MAX_WIDTH;
+import static me.collections.persistent.btree.Node.MIN_WIDTH;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class PersistentBTreeTest {
+
+    @Test
+    void should_add_and_remove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TreeSet<Integer> expected = new TreeSet<>();
+        PersistentBTree<Integer> tree = new PersistentBTree<>();
+        for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(3000);
+            PersistentBTree<Integer> newTree;
+            if (random.nextInt(3) > 0) {
+                newTree = tree.add(key);
+                assertEquals(expected.add(key), newTree != tree);
+            } else {
+                newTree = tree.remove(key);
+                assertEquals(expected.remove(key), newTree != tree);
+            }
+            tree = newTree;
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.contains(key), tree.contains(key));
+            if (i % 100 == 0) {
+                validate(tree);
+                assertEquals(new ArrayList<>(expected), tree.asList());
+            }
+        }
+        while (!expected.isEmpty()) {
+            tree = tree.remove(expected.pollFirst());
+        }
+        validate(tree);
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void should_keep_old_versions() {
+        List<PersistentBTree<Integer>> versions = new ArrayList<>();
+        PersistentBTree<Integer> tree = new PersistentBTree<>();
+        for (int i = 0; i < 2000; i++) {
+            versions.add(tree);
+            tree = tree.add(i);
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(i, versions.get(i).size());
+            assertEquals(IntStream.range(0, i).boxed().collect(Collectors.toList()), versions.get(i).asList());
+        }
+    }
+
+    @Test
+    void should_build_from_sorted() {
+        for (int n = 0; n < 3000; n += 1 + n / 10) {
+            List<Integer> keys = IntStream.range(0, n).boxed().collect(Collectors.toList());
+            PersistentBTree<Integer> tree = PersistentBTree.fromSorted(keys);
+            validate(tree);
+            assertEquals(keys, tree.asList());
+        }
+        assertThrows(IllegalArgumentException.class, () -> PersistentBTree.fromSorted(new Integer[]{1, 1}));
+    }
+
+    @Test
+    void should_navigate() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2000; i++) expected.add(random.nextInt(10000));
+        PersistentBTree<Integer> tree = PersistentBTree.fromSorted(expected);
+        List<Integer> list = new ArrayList<>(expected);
+
+        assertEquals(expected.first(), tree.peekMin());
+        assertEquals(expected.last(), tree.peekMax());
+        for (int x = -10; x < 10010; x += 3) {
+            assertEquals(expected.floor(x), tree.floor(x));
+            assertEquals(expected.ceiling(x), tree.ceiling(x));
+            assertEquals(expected.lower(x), tree.lower(x));
+            assertEquals(expected.higher(x), tree.higher(x));
+            assertEquals(expected.headSet(x).size(), tree.rank(x));
+        }
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.get(i), tree.select(i));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(list.size()));
+
+        List<Integer> descending = new ArrayList<>();
+        tree.descendingIterator().forEachRemaining(descending::add);
+        assertEquals(new ArrayList<>(expected.descendingSet()), descending);
+        assertEquals(list, tree.stream().collect(Collectors.toList()));
+        assertThrows(IllegalStateException.class, () -> new PersistentBTree<Integer>().peekMin());
+    }
+
+    @Test
+    void should_split_into_ranges() {
+        TreeSet<Integer> expected = new TreeSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 2000; i++) expected.add(random.nextInt(10000));
+        PersistentBTree<Integer> tree = PersistentBTree.fromSorted(expected);
+
+        for (int i = 0; i < 100; i++) {
+            int from = random.nextInt(10000);
+            int to = from + random.nextInt(10000 - from);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            PersistentBTree<Integer> subSet = tree.subSet(from, fromInclusive, to, toInclusive);
+            validate(subSet);
+            assertEquals(new ArrayList<>(expected.subSet(from, fromInclusive, to, toInclusive)), subSet.asList());
+            assertEquals(new ArrayList<>(expected.headSet(to, toInclusive)), tree.headSet(to, toInclusive).asList());
+            assertEquals(new ArrayList<>(expected.tailSet(from, fromInclusive)),
+                    tree.tailSet(from, fromInclusive).asList());
+        }
+        assertSame(tree, tree.subSet(-1, 10000));
+        assertThrows(IllegalArgumentException.class, () -> tree.subSet(2, 1));
+    }
+
+    @Test
+    void should_combine_sets() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int[] sizes : new int[][]{{0, 100}, {10, 5000}, {3000, 3000}, {5000, 10}}) {
+            TreeSet<Integer> a = new TreeSet<>(), b = new TreeSet<>();
+            for (int i = 0; i < sizes[0]; i++) a.add(random.nextInt(10000));
+            for (int i = 0; i < sizes[1]; i++) b.add(random.nextInt(10000));
+            PersistentBTree<Integer> left = PersistentBTree.fromSorted(a), right = PersistentBTree.fromSorted(b);
+
+            TreeSet<Integer> union = new TreeSet<>(a);
+            union.addAll(b);
+            TreeSet<Integer> intersection = new TreeSet<>(a);
+            intersection.retainAll(b);
+            TreeSet<Integer> difference = new TreeSet<>(a);
+            difference.removeAll(b);
+            checkSame(union, left.union(right));
+            checkSame(intersection, left.intersection(right));
+            checkSame(difference, left.difference(right));
+        }
+    }
+
+    @Test
+    void should_poll_min_until_empty() {
+        PersistentBTree<Integer> tree = PersistentBTree.fromSorted(IntStream.range(0, 1000).boxed()
+                .collect(Collectors.toList()));
+        for (int i = 0; i < 1000; i++) {
+            Pair<Integer, PersistentBTree<Integer>> pair = tree.pollMin();
+            assertEquals(i, (int) pair.getKey());
+            tree = pair.getValue();
+        }
+        validate(tree);
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void should_compare_by_keys() {
+        PersistentBTree<Integer> ascending = new PersistentBTree<>();
+        PersistentBTree<Integer> descending = new PersistentBTree<>(Comparator.<Integer>reverseOrder());
+        PersistentBTree<Integer> shuffled = new PersistentBTree<>();
+        List<Integer> keys = IntStream.range(0, 500).boxed().collect(Collectors.toList());
+        for (int key : keys) ascending = ascending.add(key);
+        Collections.shuffle(keys);
+        for (int key : keys) {
+            shuffled = shuffled.add(key);
+            descending = descending.add(key);
+        }
+
+        assertEquals(ascending, shuffled);
+        assertEquals(ascending.hashCode(), shuffled.hashCode());
+        assertEquals(new HashSet<>(keys).hashCode(), ascending.hashCode());
+        assertNotEquals(ascending, shuffled.remove(7));
+        assertEquals(499, (int) descending.peekMin());
+        assertEquals(Comparator.reverseOrder(), descending.spliterator().getComparator());
+        assertNull(ascending.spliterator().getComparator());
+    }
+
+    private static void checkSame(TreeSet<Integer> expected, PersistentBTree<Integer> actual) {
+        validate(actual);
+        assertEquals(new ArrayList<>(expected), actual.asList());
+    }
+
+    /**
+     * Checks key order, separators, node widths, cached sizes and that all leaves are at the same depth.
+     */
+    private static <K extends Comparable<K>> void validate(PersistentBTree<K> tree) {
+        Node<K> root = tree.root();
+        if (!root.isLeaf()) {
+            assertTrue(root.width() >= 2, "root branch with a single child");
+        }
+        check(root, null, null, true);
+        assertEquals(tree.size(), tree.asList().size());
+    }
+
+    /**
+     * @return height of the subtree
+     */
+    private static <K extends Comparable<K>> int check(Node<K> node, K min, K max, boolean isRoot) {
+        assertTrue(node.width() <= MAX_WIDTH, "overfull node");
+        if (!isRoot) {
+            assertTrue(node.width() >= MIN_WIDTH, "underfull node");
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            if (i > 0) assertTrue(node.key(i - 1).compareTo(node.key(i)) < 0, "keys out of order");
+            if (min != null) assertTrue(min.compareTo(node.key(i)) <= 0, "key below separator");
+            if (max != null) assertTrue(node.key(i).compareTo(max) < 0, "key above separator");
+        }
+        if (node.isLeaf()) {
+            assertEquals(node.keys.length, node.size);
+            return 1;
+        }
+        assertEquals(node.children.length - 1, node.keys.length);
+        int size = 0, height = -1;
+        for (int i = 0; i < node.children.length; i++) {
+            K childMin = i == 0 ? min : node.key(i - 1);
+            K childMax = i == node.keys.length ? max : node.key(i);
+            int childHeight = check(node.children[i], childMin, childMax, false);
+            if (height >= 0) assertEquals(height, childHeight, "leaves at different depths");
+            height = childHeight;
+            size += node.children[i].size;
+        }
+        assertEquals(size, node.size);
+        return height + 1;
+    }
+}
@@ -0,0 +1,174 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class AppendOnlyTreeStoreTest {
+
+    @Test
+    void should_store_only_copied_paths() throws IOException {
+        Path directory = Files.createTempDirectory("store");
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            List<PersistentRedBlackTree<Long>> history = new ArrayList<>();
+            PersistentRedBlackTree<Long> tree = new PersistentRedBlackTree<>();
+            for (int i = 0; i < 10000; i++) {
+                tree = tree.add(random.nextLong(1_000_000));
+            }
+            try (AppendOnlyTreeStore<Long> store = AppendOnlyTreeStore.open(directory, KeyCodec.LONG)) {
+                assertEquals(0, store.commit(tree));
+                assertEquals(tree.size(), store.nodeCount());
+                history.add(tree);
+                for (int i = 1; i < 200; i++) {
+                    long before = store.nodeCount();
+                    tree = i % 3 == 0 ? tree.remove(tree.select(random.nextInt(tree.size())))
+                            : tree.add(random.nextLong(1_000_000));
+                    assertEquals(i, store.commit(tree));
+                    assertTrue(store.nodeCount() - before <= 3 * NodeIterator.maxHeight(tree.size()));
+                    history.add(tree);
+                }
+                long before = store.nodeCount();
+                store.commit(tree);
+                assertEquals(before, store.nodeCount());
+                history.add(tree);
+            }
+            try (AppendOnlyTreeStore<Long> store = AppendOnlyTreeStore.open(directory, KeyCodec.LONG)) {
+                assertEquals(history.size(), store.versions());
+                for (int i = 0; i < history.size(); i++) {
+                    PersistentRedBlackTree<Long> loaded = store.load(i);
+                    Validator.validate(loaded);
+                    assertEquals(history.get(i).asList(), loaded.asList());
+                }
+                // nodes of a loaded version are known to the store
+                long before = store.nodeCount();
+                store.commit(store.load(history.size() - 1).add(-1L));
+                assertTrue(store.nodeCount() - before <= NodeIterator.maxHeight(tree.size() + 1));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void should_compact_dropped_versions() throws IOException {
+        Path directory = Files.createTempDirectory("store");
+        Path compacted = directory.resolve("compacted");
+        try (AppendOnlyTreeStore<Integer> store = AppendOnlyTreeStore.open(directory, KeyCodec.INTEGER,
+                Comparator.reverseOrder())) {
+            PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>(Comparator.<Integer>reverseOrder());
+            store.commit(tree);
+            for (int i = 0; i < 1000; i++) {
+                tree = tree.add(i);
+                store.commit(tree);
+            }
+            try (AppendOnlyTreeStore<Integer> copy = store.compact(compacted, 990)) {
+                assertEquals(11, copy.versions());
+                assertTrue(copy.nodeCount() < store.nodeCount() / 10);
+                for (int i = 0; i < copy.versions(); i++) {
+                    assertEquals(store.load(990 + i).asList(), copy.load(i).asList());
+                }
+                assertEquals(989, (int) copy.load(0).peekMin());
+                assertThrows(IOException.class, () -> store.compact(compacted, 0));
+            }
+            try (AppendOnlyTreeStore<Integer> copy = AppendOnlyTreeStore.open(compacted, KeyCodec.INTEGER,
+                    Comparator.reverseOrder())) {
+                assertEquals(tree.asList(), copy.load(10).asList());
+            }
+            assertTrue(store.load(0).isEmpty());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void should_drop_torn_tail() throws IOException {
+        Path directory = Files.createTempDirectory("store");
+        try {
+            PersistentRedBlackTree<Integer> tree = PersistentRedBlackTree.fromSorted(new Integer[]{1, 2, 3});
+            try (AppendOnlyTreeStore<Integer> store = AppendOnlyTreeStore.open(directory, KeyCodec.INTEGER)) {
+                store.commit(tree);
+                store.commit(tree.add(4));
+            }
+            // a crash in the middle of the second commit
+            truncate(directory.resolve("versions.log"), 5);
+            truncate(directory.resolve("nodes.dat"), 3);
+            try (AppendOnlyTreeStore<Integer> store = AppendOnlyTreeStore.open(directory, KeyCodec.INTEGER)) {
+                assertEquals(1, store.versions());
+                assertEquals(tree.asList(), store.load(0).asList());
+                assertEquals(1, store.commit(store.load(0).add(5)));
+            }
+            try (AppendOnlyTreeStore<Integer> store = AppendOnlyTreeStore.open(directory, KeyCodec.INTEGER)) {
+                assertEquals(tree.add(5).asList(), store.load(1).asList());
+            }
+            assertThrows(IOException.class, () -> AppendOnlyTreeStore.open(directory, KeyCodec.LONG));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void should_reject_codec_writing_wrong_width() throws IOException {
+        KeyCodec<Integer> shortForNegative = new KeyCodec<Integer>() {
+            @Override
+            public int width() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(Integer key, ByteBuffer buffer) {
+                if (key < 0) buffer.putShort(key.shortValue());
+                else buffer.putInt(key);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+                return buffer.getInt(offset);
+            }
+        };
+        Path directory = Files.createTempDirectory("store");
+        try {
+            PersistentRedBlackTree<Integer> tree = PersistentRedBlackTree.fromSorted(new Integer[]{1, 2, 3});
+            try (AppendOnlyTreeStore<Integer> store = AppendOnlyTreeStore.open(directory, shortForNegative)) {
+                store.commit(tree);
+                long nodes = store.nodeCount();
+                assertThrows(IllegalStateException.class, () -> store.commit(tree.add(-1)));
+                assertEquals(1, store.versions());
+                assertEquals(nodes, store.nodeCount());
+                assertEquals(1, store.commit(tree.add(4)));
+            }
+            try (AppendOnlyTreeStore<Integer> store = AppendOnlyTreeStore.open(directory, shortForNegative)) {
+                assertEquals(tree.add(4).asList(), store.load(1).asList());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void truncate(Path file, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - bytes);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        Files.walk(directory)
+                .sorted(Comparator.reverseOrder())
+                .forEach(path -> path.toFile().delete());
+    }
+}
@@ -0,0 +1,186 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class ChangeLogTest {
+
+    @Test
+    void should_replicate_over_pipe() throws Exception {
+        ChangeLog<Long> leader = new ChangeLog<>(new PersistentRedBlackTree<>(), KeyCodec.LONG);
+        ChangeLog.Replica<Long> replica = new ChangeLog.Replica<>(new PersistentRedBlackTree<>(), KeyCodec.LONG);
+        Pipe pipe = Pipe.open();
+        List<PersistentRedBlackTree<Long>> sent = new ArrayList<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<PersistentRedBlackTree<Long>>> received = executor.submit(() -> {
+                List<PersistentRedBlackTree<Long>> versions = new ArrayList<>();
+                for (PersistentRedBlackTree<Long> tree = replica.applyFrom(pipe.source()); tree != null;
+                     tree = replica.applyFrom(pipe.source())) {
+                    versions.add(tree);
+                }
+                return versions;
+            });
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int batch = 0; batch < 50; batch++) {
+                for (int i = random.nextInt(200); i > 0; i--) {
+                    int operation = random.nextInt(5);
+                    if (operation < 3) {
+                        leader.add(random.nextLong(5000));
+                    } else if (operation == 3) {
+                        leader.remove(random.nextLong(5000));
+                    } else if (!leader.tree().isEmpty()) {
+                        leader.pollMin();
+                    }
+                }
+                leader.flush(pipe.sink());
+                sent.add(leader.tree());
+            }
+            pipe.sink().close();
+            List<PersistentRedBlackTree<Long>> versions = received.get();
+            assertEquals(sent.size(), versions.size());
+            for (int i = 0; i < sent.size(); i++) {
+                // replicas converge to the very shape of the leader
+                assertEquals(sent.get(i), versions.get(i));
+            }
+            assertEquals(leader.sequence(), replica.sequence());
+            Validator.validate(replica.tree());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void should_log_only_changes() {
+        ChangeLog<Integer> leader = new ChangeLog<>(new PersistentRedBlackTree<>(), KeyCodec.INTEGER);
+        assertTrue(leader.add(1));
+        assertFalse(leader.add(1));
+        assertFalse(leader.remove(2));
+        assertTrue(leader.add(2));
+        assertEquals(1, (int) leader.pollMin());
+        assertEquals(3, leader.sequence());
+        ByteBuffer batch = leader.flush();
+        // header, two adds and a poll
+        assertEquals(20 + 2 * 5 + 1, batch.remaining());
+        assertEquals(20, leader.flush().remaining());
+        assertThrows(IllegalArgumentException.class, () -> leader.add(null));
+        leader.pollMin();
+        assertThrows(IllegalStateException.class, leader::pollMin);
+    }
+
+    @Test
+    void should_reject_gaps_and_divergence() throws IOException {
+        PersistentRedBlackTree<Integer> initial = PersistentRedBlackTree.fromSorted(new Integer[]{1, 2, 3});
+        ChangeLog<Integer> leader = new ChangeLog<>(initial, KeyCodec.INTEGER);
+        leader.add(4);
+        ByteBuffer first = leader.flush();
+        leader.remove(1);
+        ByteBuffer second = leader.flush();
+
+        ChangeLog.Replica<Integer> replica = new ChangeLog.Replica<>(initial, KeyCodec.INTEGER);
+        assertThrows(IllegalStateException.class, () -> replica.apply(second.duplicate()));
+        replica.apply(first);
+        assertEquals(1, replica.sequence());
+        replica.apply(second);
+        assertEquals(leader.tree(), replica.tree());
+
+        // a replica that didn't start where the leader did
+        ChangeLog<Integer> other = new ChangeLog<>(initial, KeyCodec.INTEGER);
+        other.add(4);
+        ChangeLog.Replica<Integer> diverged = new ChangeLog.Replica<>(initial.remove(1), KeyCodec.INTEGER);
+        PersistentRedBlackTree<Integer> before = diverged.tree();
+        assertThrows(IllegalStateException.class, () -> diverged.apply(other.flush()));
+        assertSame(before, diverged.tree());
+        assertEquals(0, diverged.sequence());
+
+        // a late replica starts from a snapshot of the leader
+        ChangeLog.Replica<Integer> late = new ChangeLog.Replica<>(leader.tree(), leader.sequence(), KeyCodec.INTEGER);
+        leader.pollMin();
+        assertEquals(leader.tree(), late.apply(leader.flush()));
+    }
+
+    @Test
+    void should_reject_batches_with_wrong_count_or_length() throws IOException {
+        ChangeLog<Integer> leader = new ChangeLog<>(new PersistentRedBlackTree<>(), KeyCodec.INTEGER);
+        leader.add(1);
+        ByteBuffer first = leader.flush();
+        leader.add(2);
+        ByteBuffer second = leader.flush();
+        ByteBuffer stream = ByteBuffer.allocate(first.remaining() + second.remaining());
+        stream.put(first.duplicate()).put(second.duplicate()).flip();
+
+        ChangeLog.Replica<Integer> replica = new ChangeLog.Replica<>(new PersistentRedBlackTree<>(), KeyCodec.INTEGER);
+        // the count follows the length and the first operation number
+        for (int count : new int[]{2, 0, -1}) {
+            ByteBuffer corrupted = copy(stream);
+            corrupted.putInt(12, count);
+            assertThrows(IllegalArgumentException.class, () -> replica.apply(corrupted));
+            assertEquals(0, corrupted.position());
+            assertEquals(0, replica.sequence());
+        }
+        replica.apply(stream);
+        replica.apply(stream);
+        assertEquals(leader.tree(), replica.tree());
+
+        for (int length : new int[]{Integer.MAX_VALUE, ChangeLog.MAX_BATCH_BYTES}) {
+            ByteBuffer huge = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, length);
+            Pipe pipe = Pipe.open();
+            pipe.sink().write(huge);
+            pipe.sink().close();
+            assertThrows(IOException.class, () -> replica.applyFrom(pipe.source()));
+        }
+    }
+
+    @Test
+    void should_keep_batch_intact_when_codec_fails() {
+        KeyCodec<Integer> rejectingNegative = new KeyCodec<Integer>() {
+            @Override
+            public int width() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(Integer key, ByteBuffer buffer) {
+                if (key == -1) throw new IllegalArgumentException("Negative key");
+                if (key < 0) buffer.putShort(key.shortValue());
+                else buffer.putInt(key);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int offset) {
+                return buffer.getInt(offset);
+            }
+        };
+        ChangeLog<Integer> leader = new ChangeLog<>(new PersistentRedBlackTree<>(), rejectingNegative);
+        leader.add(1);
+        assertThrows(IllegalArgumentException.class, () -> leader.add(-1));
+        assertThrows(IllegalStateException.class, () -> leader.add(-2));
+        leader.add(2);
+        assertEquals(2, leader.sequence());
+        assertEquals(Arrays.asList(1, 2), leader.tree().asList());
+
+        ChangeLog.Replica<Integer> replica = new ChangeLog.Replica<>(new PersistentRedBlackTree<>(), rejectingNegative);
+        assertEquals(leader.tree(), replica.apply(leader.flush()));
+        assertEquals(2, replica.sequence());
+    }
+
+    private static ByteBuffer copy(ByteBuffer buffer) {
+        ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+        copy.put(buffer.duplicate()).flip();
+        return copy.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
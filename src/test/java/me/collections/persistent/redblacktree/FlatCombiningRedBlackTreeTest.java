@@ -0,0 +1,187 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class FlatCombiningRedBlackTreeTest {
+
+    @Test
+    void should_apply_every_request_once() throws Exception {
+        int threads = 8, keys = 2000;
+        SharedRedBlackTree<Integer> shared = new SharedRedBlackTree<>();
+        FlatCombiningRedBlackTree<Integer> combining = new FlatCombiningRedBlackTree<>(shared);
+        AtomicInteger added = new AtomicInteger(), removed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean cas = t == 0;
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < keys; i++) {
+                        int key = random.nextInt(keys);
+                        if (cas) {
+                            // plain CAS writers may share the holder
+                            if (shared.add(key)) added.incrementAndGet();
+                            if (shared.remove(random.nextInt(keys))) removed.incrementAndGet();
+                            continue;
+                        }
+                        FlatCombiningRedBlackTree.Update<Integer> add = combining.add(key);
+                        assertTrue(add.version().contains(key));
+                        if (add.changed()) added.incrementAndGet();
+                        FlatCombiningRedBlackTree.Update<Integer> remove = combining.remove(random.nextInt(keys));
+                        assertFalse(remove.version().contains(remove.key()));
+                        if (remove.changed()) removed.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Validator.validate(combining.get());
+        assertEquals(added.get() - removed.get(), combining.get().size());
+    }
+
+    @Test
+    void should_report_request_outcome() {
+        FlatCombiningRedBlackTree<Integer> combining = new FlatCombiningRedBlackTree<>();
+        FlatCombiningRedBlackTree.Update<Integer> first = combining.add(1);
+        assertTrue(first.changed());
+        assertSame(combining.get(), first.version());
+        FlatCombiningRedBlackTree.Update<Integer> again = combining.add(1);
+        assertFalse(again.changed());
+        assertSame(first.version(), again.version());
+        assertFalse(combining.remove(2).changed());
+        assertTrue(combining.remove(1).version().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> combining.add(null));
+    }
+
+    @Test
+    void should_fail_only_the_request_with_rejected_key() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+        SharedRedBlackTree<Integer> shared = new SharedRedBlackTree<>(
+                new PersistentRedBlackTree<>(blocking(entered, release)).add(0));
+        FlatCombiningRedBlackTree<Integer> combining = new FlatCombiningRedBlackTree<>(shared);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<FlatCombiningRedBlackTree.Update<Integer>> busy = executor.submit(() -> combining.add(1));
+            entered.await();
+            // both requests below wait for the busy combiner and are then applied as one batch
+            Thread[] waiters = new Thread[2];
+            Future<?> rejected = executor.submit(() -> {
+                waiters[0] = Thread.currentThread();
+                return combining.add(-1);
+            });
+            awaitParked(waiters, 0);
+            Future<FlatCombiningRedBlackTree.Update<Integer>> accepted = executor.submit(() -> {
+                waiters[1] = Thread.currentThread();
+                return combining.add(2);
+            });
+            awaitParked(waiters, 1);
+            release.countDown();
+
+            assertTrue(busy.get().changed());
+            ExecutionException failure = assertThrows(ExecutionException.class, rejected::get);
+            assertTrue(failure.getCause() instanceof ClassCastException);
+            FlatCombiningRedBlackTree.Update<Integer> update = accepted.get();
+            assertTrue(update.changed());
+            assertTrue(update.version().contains(2));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(Arrays.asList(0, 1, 2), combining.get().asList());
+    }
+
+    @Test
+    void should_complete_whole_batch_when_combiner_fails() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1), release = new CountDownLatch(1);
+        SharedRedBlackTree<Integer> shared = new SharedRedBlackTree<>(
+                new PersistentRedBlackTree<>(blocking(entered, release)).add(0));
+        FlatCombiningRedBlackTree<Integer> combining = new FlatCombiningRedBlackTree<>(shared);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<FlatCombiningRedBlackTree.Update<Integer>> busy = executor.submit(() -> combining.add(1));
+            entered.await();
+            Thread[] waiters = new Thread[2];
+            Future<?> failing = executor.submit(() -> {
+                waiters[0] = Thread.currentThread();
+                return combining.add(-2);
+            });
+            awaitParked(waiters, 0);
+            // an interrupted waiter still parks instead of spinning, and keeps its interrupt
+            boolean[] interrupted = new boolean[1];
+            Future<?> other = executor.submit(() -> {
+                waiters[1] = Thread.currentThread();
+                Thread.currentThread().interrupt();
+                try {
+                    return combining.add(2);
+                } finally {
+                    interrupted[0] = Thread.interrupted();
+                }
+            });
+            awaitParked(waiters, 1);
+            release.countDown();
+
+            assertTrue(busy.get(10, TimeUnit.SECONDS).changed());
+            // an error isn't tied to one request, every request of the batch fails with it
+            for (Future<?> future : Arrays.asList(failing, other)) {
+                ExecutionException failure = assertThrows(ExecutionException.class,
+                        () -> future.get(10, TimeUnit.SECONDS));
+                assertTrue(failure.getCause() instanceof AssertionError);
+            }
+            assertTrue(interrupted[0]);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(Arrays.asList(0, 1), combining.get().asList());
+        assertTrue(combining.add(3).changed());
+    }
+
+    /**
+     * Rejects -1 with an exception and -2 with an error. Comparing 1 keeps the first combiner busy until the
+     * requests of the next batch are published.
+     */
+    private static Comparator<Integer> blocking(CountDownLatch entered, CountDownLatch release) {
+        return (a, b) -> {
+            if (a == -1 || b == -1) {
+                throw new ClassCastException("rejected");
+            }
+            if (a == -2 || b == -2) {
+                throw new AssertionError("failed");
+            }
+            if (a == 1 || b == 1) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return Integer.compare(a, b);
+        };
+    }
+
+    private static void awaitParked(Thread[] threads, int index) throws InterruptedException {
+        while (threads[index] == null || threads[index].getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class MappedRedBlackTreeTest {
+
+    @Test
+    void should_answer_from_mapping() throws IOException {
+        TreeSet<Long> expected = new TreeSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PersistentRedBlackTree<Long> tree = new PersistentRedBlackTree<>();
+        for (int i = 0; i < 5000; i++) {
+            long key = random.nextLong(-20000, 20000);
+            expected.add(key);
+            tree = tree.add(key);
+        }
+        Path file = Files.createTempFile("tree", ".snapshot");
+        try {
+            MappedRedBlackTree.write(tree, KeyCodec.LONG, file);
+            assertEquals(MappedRedBlackTree.HEADER_BYTES + 16L * expected.size(), Files.size(file));
+            // tiny chunks so that lookups cross mappings
+            for (long chunkBytes : new long[]{16 * 7, 1L << 30}) {
+                MappedRedBlackTree<Long> mapped = MappedRedBlackTree.open(file, KeyCodec.LONG,
+                        Comparator.naturalOrder(), chunkBytes);
+                assertEquals(expected.size(), mapped.size());
+                assertEquals(expected.first(), mapped.peekMin());
+                assertEquals(expected.last(), mapped.peekMax());
+                for (long x = -20010; x < 20010; x += 7) {
+                    assertEquals(expected.contains(x), mapped.contains(x));
+                }
+                assertEquals(new ArrayList<>(expected), toList(mapped.iterator()));
+                for (int i = 0; i < 100; i++) {
+                    long from = random.nextLong(-20000, 20000);
+                    long to = from + random.nextLong(20000 - from);
+                    boolean fromInclusive = random.nextBoolean();
+                    boolean toInclusive = random.nextBoolean();
+                    assertEquals(new ArrayList<>(expected.subSet(from, fromInclusive, to, toInclusive)),
+                            toList(mapped.range(from, fromInclusive, to, toInclusive)));
+                }
+                assertEquals(tree.asList(), mapped.toTree().asList());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void should_map_empty_tree() throws IOException {
+        Path file = Files.createTempFile("tree", ".snapshot");
+        try {
+            MappedRedBlackTree.write(new PersistentRedBlackTree<>(), KeyCodec.INTEGER, file);
+            MappedRedBlackTree<Integer> mapped = MappedRedBlackTree.open(file, KeyCodec.INTEGER);
+            assertTrue(mapped.isEmpty());
+            assertFalse(mapped.contains(1));
+            assertFalse(mapped.iterator().hasNext());
+            assertThrows(IllegalStateException.class, mapped::peekMin);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void should_reject_foreign_files() throws IOException {
+        Path file = Files.createTempFile("tree", ".snapshot");
+        try {
+            PersistentRedBlackTree<Integer> tree = PersistentRedBlackTree.fromSorted(new Integer[]{1, 2, 3});
+            MappedRedBlackTree.write(tree, KeyCodec.INTEGER, file);
+            assertThrows(IOException.class, () -> MappedRedBlackTree.open(file, KeyCodec.LONG));
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(Files.size(file) - 1);
+            }
+            assertThrows(IOException.class, () -> MappedRedBlackTree.open(file, KeyCodec.INTEGER));
+            Files.write(file, new byte[]{1, 2, 3});
+            assertThrows(IOException.class, () -> MappedRedBlackTree.open(file, KeyCodec.INTEGER));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void should_reject_corrupted_links() throws IOException {
+        Path file = Files.createTempFile("tree", ".snapshot");
+        try {
+            PersistentRedBlackTree<Integer> tree = PersistentRedBlackTree.fromSorted(new Integer[]{1, 2, 3});
+            MappedRedBlackTree.write(tree, KeyCodec.INTEGER, file);
+            // height is the fourth header int
+            for (int height : new int[]{-1, 1, 100}) {
+                overwrite(file, 12, height);
+                assertThrows(IOException.class, () -> MappedRedBlackTree.open(file, KeyCodec.INTEGER));
+            }
+            overwrite(file, 12, 2);
+            // root is the last of the 12-byte records, its left index comes first
+            overwrite(file, MappedRedBlackTree.HEADER_BYTES + 2 * 12, 5);
+            MappedRedBlackTree<Integer> mapped = MappedRedBlackTree.open(file, KeyCodec.INTEGER);
+            assertThrows(IllegalStateException.class, () -> mapped.contains(1));
+            assertThrows(IllegalStateException.class, mapped::iterator);
+            assertTrue(mapped.contains(3));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void overwrite(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), position);
+        }
+    }
+
+    private static <K> List<K> toList(Iterator<K> iterator) {
+        List<K> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
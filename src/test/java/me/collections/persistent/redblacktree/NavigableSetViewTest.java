@@ -0,0 +1,84 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class NavigableSetViewTest {
+
+    @Test
+    void should_answer_like_tree_set() {
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 500; i++) treeSet.add(random.nextInt(2000));
+        NavigableSet<Integer> view = PersistentRedBlackTree.fromSorted(treeSet).asNavigableSet();
+
+        checkSame(treeSet, view);
+        checkSame(treeSet.descendingSet(), view.descendingSet());
+        checkSame(treeSet.descendingSet().descendingSet(), view.descendingSet().descendingSet());
+        for (int i = 0; i < 100; i++) {
+            int from = random.nextInt(2000);
+            int to = from + random.nextInt(2000 - from);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            checkSame(treeSet.subSet(from, fromInclusive, to, toInclusive),
+                    view.subSet(from, fromInclusive, to, toInclusive));
+            checkSame(treeSet.descendingSet().subSet(to, toInclusive, from, fromInclusive),
+                    view.descendingSet().subSet(to, toInclusive, from, fromInclusive));
+            checkSame(treeSet.headSet(to, toInclusive), view.headSet(to, toInclusive));
+            checkSame(treeSet.descendingSet().headSet(to, toInclusive), view.descendingSet().headSet(to, toInclusive));
+            checkSame(treeSet.tailSet(from, fromInclusive), view.tailSet(from, fromInclusive));
+            checkSame(treeSet.descendingSet().tailSet(from, true), view.descendingSet().tailSet(from, true));
+        }
+    }
+
+    @Test
+    void should_be_unmodifiable() {
+        NavigableSet<Integer> view = new PersistentRedBlackTree<Integer>().add(1).add(2).asNavigableSet();
+
+        assertThrows(UnsupportedOperationException.class, () -> view.add(3));
+        assertThrows(UnsupportedOperationException.class, () -> view.remove(1));
+        assertThrows(UnsupportedOperationException.class, view::pollFirst);
+        assertThrows(UnsupportedOperationException.class, view::clear);
+        assertThrows(UnsupportedOperationException.class, () -> view.iterator().remove());
+        assertThrows(NullPointerException.class, () -> view.contains(null));
+        assertThrows(NoSuchElementException.class, () -> new PersistentRedBlackTree<Integer>().asNavigableSet().first());
+        assertEquals(new TreeSet<>(Arrays.asList(1, 2)), view);
+        assertNull(view.comparator());
+        assertEquals(Arrays.asList(2, 1), new ArrayList<>(view.descendingSet()));
+    }
+
+    private static void checkSame(NavigableSet<Integer> expected, NavigableSet<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+        List<Integer> expectedDescending = new ArrayList<>();
+        expected.descendingIterator().forEachRemaining(expectedDescending::add);
+        List<Integer> actualDescending = new ArrayList<>();
+        actual.descendingIterator().forEachRemaining(actualDescending::add);
+        assertEquals(expectedDescending, actualDescending);
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), actual.first());
+            assertEquals(expected.last(), actual.last());
+        }
+        for (int x = -5; x < 2005; x += 7) {
+            assertEquals(expected.contains(x), actual.contains(x));
+            assertEquals(expected.floor(x), actual.floor(x));
+            assertEquals(expected.ceiling(x), actual.ceiling(x));
+            assertEquals(expected.lower(x), actual.lower(x));
+            assertEquals(expected.higher(x), actual.higher(x));
+        }
+        Comparator<? super Integer> comparator = actual.comparator();
+        if (comparator != null && actual.size() > 1) {
+            assertTrue(comparator.compare(actual.first(), actual.last()) < 0);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static me.collections.persistent.redblacktree.Validator.validate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class OffHeapLongRedBlackTreeTest {
+
+    @Test
+    void should_add_and_remove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TreeSet<Long> expected = new TreeSet<>();
+        OffHeapLongRedBlackTree tree = new OffHeapLongRedBlackTree(new LongArena());
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextLong(-500, 500);
+            OffHeapLongRedBlackTree newTree;
+            if (random.nextBoolean()) {
+                newTree = tree.add(key);
+                assertEquals(expected.add(key), newTree != tree);
+            } else {
+                newTree = tree.remove(key);
+                assertEquals(expected.remove(key), newTree != tree);
+            }
+            tree = newTree;
+            validate(tree);
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.contains(key), tree.contains(key));
+        }
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), tree.toArray());
+    }
+
+    @Test
+    void should_remove_min_until_empty() {
+        OffHeapLongRedBlackTree tree = new OffHeapLongRedBlackTree(new LongArena());
+        int n = 1000;
+        for (int i = 0; i < n; i++) {
+            tree = tree.add(i % 2 == 0 ? i / 2 : n - 1 - i / 2);
+        }
+        for (long i = 0; i < n; i++) {
+            assertEquals(i, tree.peekMin());
+            assertEquals(n - 1, tree.peekMax());
+            tree = tree.removeMin();
+            validate(tree);
+        }
+        assertTrue(tree.isEmpty());
+        OffHeapLongRedBlackTree empty = tree;
+        assertThrows(IllegalStateException.class, empty::peekMin);
+        assertThrows(IllegalArgumentException.class, empty::removeMin);
+    }
+
+    @Test
+    void should_keep_versions_through_compaction() {
+        LongArena arena = new LongArena();
+        OffHeapLongRedBlackTree tree = new OffHeapLongRedBlackTree(arena);
+        List<OffHeapLongRedBlackTree> kept = new ArrayList<>();
+        List<long[]> expected = new ArrayList<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 5000; i++) {
+            tree = random.nextInt(4) == 0 ? tree.remove(random.nextLong(2000)) : tree.add(random.nextLong(2000));
+            if (i % 1000 == 999) {
+                kept.add(tree);
+                expected.add(tree.toArray());
+            }
+        }
+
+        List<OffHeapLongRedBlackTree> compacted = arena.compact(kept);
+        arena.close();
+        assertThrows(IllegalStateException.class, () -> kept.get(0).contains(1));
+        assertThrows(IllegalStateException.class, () -> kept.get(0).toArray());
+
+        LongArena target = compacted.get(0).arena();
+        assertTrue(target.nodeCount() < arena.nodeCount());
+        int shared = 2;
+        for (int i = 0; i < compacted.size(); i++) {
+            validate(compacted.get(i));
+            assertArrayEquals(expected.get(i), compacted.get(i).toArray());
+            shared += compacted.get(i).size();
+        }
+        assertTrue(target.nodeCount() < shared, "versions should share nodes");
+
+        OffHeapLongRedBlackTree last = compacted.get(compacted.size() - 1).add(-1).remove(-1);
+        validate(last);
+        assertEquals(compacted.get(compacted.size() - 1), last);
+        assertThrows(IllegalArgumentException.class, () -> target.compact(kept));
+    }
+
+    @Test
+    void should_read_published_versions_while_writing() throws Exception {
+        LongArena arena = new LongArena();
+        AtomicReference<OffHeapLongRedBlackTree> latest = new AtomicReference<>(new OffHeapLongRedBlackTree(arena));
+        int keys = 100_000;
+        Thread reader = new Thread(() -> {
+            OffHeapLongRedBlackTree tree;
+            do {
+                tree = latest.get();
+                // every key below the size was added before the version was published
+                assertTrue(tree.contains(tree.size() - 1) || tree.isEmpty());
+            } while (tree.size() < keys);
+        });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        reader.setUncaughtExceptionHandler((thread, e) -> failure.set(e));
+        reader.start();
+        // the path copies of this many keys span several chunks
+        for (long key = 0; key < keys; key++) {
+            latest.set(latest.get().add(key));
+        }
+        reader.join();
+        assertNull(failure.get());
+        assertTrue(arena.nodeCount() > 1 << 16);
+    }
+}
@@ -0,0 +1,100 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static me.collections.persistent.redblacktree.Validator.validate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class PersistentLongRedBlackTreeTest {
+
+    @Test
+    void should_add_and_remove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TreeSet<Long> expected = new TreeSet<>();
+        PersistentLongRedBlackTree tree = new PersistentLongRedBlackTree();
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextLong(-500, 500);
+            PersistentLongRedBlackTree newTree;
+            if (random.nextBoolean()) {
+                newTree = tree.add(key);
+                assertEquals(expected.add(key), newTree != tree);
+            } else {
+                newTree = tree.remove(key);
+                assertEquals(expected.remove(key), newTree != tree);
+            }
+            tree = newTree;
+            validate(tree);
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.contains(key), tree.contains(key));
+        }
+        assertEquals(new ArrayList<>(expected), toList(tree));
+    }
+
+    @Test
+    void should_remove_min_until_empty() {
+        for (int n = 1; n < 100; n++) {
+            PersistentLongRedBlackTree tree = new PersistentLongRedBlackTree();
+            for (int i = 0; i < n; i++) {
+                tree = tree.add(i % 2 == 0 ? i / 2 : n - 1 - i / 2);
+            }
+            for (long i = 0; i < n; i++) {
+                assertEquals(i, tree.peekMin());
+                assertEquals(n - 1, tree.peekMax());
+                tree = tree.removeMin();
+                validate(tree);
+            }
+            assertTrue(tree.isEmpty());
+        }
+        assertThrows(IllegalStateException.class, () -> new PersistentLongRedBlackTree().peekMin());
+        assertThrows(IllegalArgumentException.class, () -> new PersistentLongRedBlackTree().removeMin());
+    }
+
+    @Test
+    void should_iterate_in_order() {
+        PersistentLongRedBlackTree tree = new PersistentLongRedBlackTree();
+        TreeSet<Long> expected = new TreeSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 1000; i++) {
+            long key = random.nextLong();
+            tree = tree.add(key);
+            expected.add(key);
+        }
+
+        long[] array = tree.toArray();
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), array);
+        assertArrayEquals(array, tree.stream().toArray());
+        assertEquals(expected.stream().mapToLong(Long::longValue).sum(), tree.stream().sum());
+        List<Long> forEach = new ArrayList<>();
+        tree.forEachLong(forEach::add);
+        assertEquals(new ArrayList<>(expected), forEach);
+        PrimitiveIterator.OfLong iterator = tree.iterator();
+        while (iterator.hasNext()) iterator.nextLong();
+        assertThrows(NoSuchElementException.class, iterator::nextLong);
+    }
+
+    @Test
+    void should_compare_by_keys() {
+        PersistentLongRedBlackTree ascending = new PersistentLongRedBlackTree();
+        PersistentLongRedBlackTree descending = new PersistentLongRedBlackTree();
+        for (long i = 0; i < 100; i++) {
+            ascending = ascending.add(i);
+            descending = descending.add(99 - i);
+        }
+        assertEquals(ascending, descending);
+        assertEquals(ascending.hashCode(), descending.hashCode());
+        assertEquals(new HashSet<>(toList(ascending)).hashCode(), ascending.hashCode());
+        assertNotEquals(ascending, descending.remove(50));
+    }
+
+    private static List<Long> toList(PersistentLongRedBlackTree tree) {
+        return tree.stream().boxed().collect(Collectors.toList());
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -79,16 +80,21 @@ class PersistentRedBlackTreeTest {
     void should_insert() {
         assertThrows(IllegalArgumentException.class, () -> new PersistentRedBlackTree<>().add(null));
         ThreadLocalRandom random = ThreadLocalRandom.current();
-        List<Integer> list = new ArrayList<>();
+        TreeSet<Integer> set = new TreeSet<>();
         PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
         for (int i = 0; i < 1000; i++) {
-            int v = random.nextInt(10) - 5;
-            tree = tree.add(v);
-            list.add(v);
+            int v = random.nextInt(100) - 50;
+            PersistentRedBlackTree<Integer> newTree = tree.add(v);
+            if (set.add(v)) {
+                assertNotSame(tree, newTree);
+            } else {
+                assertSame(tree, newTree);
+            }
+            tree = newTree;
 
             validate(tree);
 
-            assertEquals(list.stream().sorted().collect(Collectors.toList()), tree.asList());
+            assertEquals(new ArrayList<>(set), tree.asList());
         }
     }
 
@@ -297,6 +303,24 @@ class PersistentRedBlackTreeTest {
         }
     }
 
+    @Test
+    void should_poll_min_until_empty() {
+        for (int n = 1; n < 100; n++) {
+            PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+            for (int i = 0; i < n; i++) {
+                tree = tree.add(i % 2 == 0 ? i / 2 : n - 1 - i / 2);
+            }
+            for (int i = 0; i < n; i++) {
+                Pair<Integer, PersistentRedBlackTree<Integer>> pair = tree.pollMin();
+                assertEquals(i, (int) pair.getKey());
+                tree = pair.getValue();
+                assertFalse(tree.root.isDoubleBlack());
+                validate(tree);
+            }
+            assertTrue(tree.isEmpty());
+        }
+    }
+
     @Test
     void should_delete() {
         assertEquals(nil(), delete(nil(), 1, Integer::compareTo));
@@ -330,7 +354,8 @@ class PersistentRedBlackTreeTest {
         assertEquals(new PersistentRedBlackTree<Integer>(), new PersistentRedBlackTree<>(red(1).build()).remove(1));
         assertEquals(new PersistentRedBlackTree<>(red(1).build()), new PersistentRedBlackTree<>(red(1).build()).remove(2));
         assertEquals(new PersistentRedBlackTree<Integer>(), new PersistentRedBlackTree<>(black(1).build()).remove(1));
-        assertEquals(new PersistentRedBlackTree<>(red(1).build()), new PersistentRedBlackTree<>(black(1).build()).remove(2));
+        PersistentRedBlackTree<Integer> single = new PersistentRedBlackTree<>(black(1).build());
+        assertSame(single, single.remove(2));
         assertEquals(new PersistentRedBlackTree<>(black(3).build()), new PersistentRedBlackTree<>(black(1).build())
                 .remove(1).add(2).add(3).remove(3).remove(1).remove(2).remove(100500).add(3));
     }
@@ -393,6 +418,10 @@ class PersistentRedBlackTreeTest {
 
                 int v = random.nextInt(1000);
                 newTree = tree.add(v);
+                if (values.contains(v)) {
+                    assertSame(tree, newTree);
+                    continue;
+                }
                 values.add(v);
 
                 if (border < 0.1) border = 0.5;
@@ -460,6 +489,381 @@ class PersistentRedBlackTreeTest {
         assertEquals(3, new PersistentRedBlackTree<>(black(1).right(red(3).build()).build()).peekMax().intValue());
     }
 
+    @Test
+    void should_count_size() {
+        PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+        assertTrue(tree.isEmpty());
+        assertEquals(0, tree.size());
+
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> pair = fillTrees(1000);
+        TreeSet<Integer> treeSet = pair.getKey();
+        tree = pair.getValue();
+        assertEquals(treeSet.size(), tree.size());
+        while (!treeSet.isEmpty()) {
+            Integer v = treeSet.pollFirst();
+            tree = tree.remove(v);
+            assertEquals(treeSet.size(), tree.size());
+            tree = tree.add(v).pollMin().getValue();
+            assertEquals(treeSet.size(), tree.size());
+        }
+        assertTrue(tree.isEmpty());
+    }
+
+    @Test
+    void should_rank_and_select() {
+        assertThrows(IndexOutOfBoundsException.class, () -> new PersistentRedBlackTree<Integer>().select(0));
+        assertEquals(0, new PersistentRedBlackTree<Integer>().rank(1));
+
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> pair = fillTrees(1000);
+        List<Integer> sorted = new ArrayList<>(pair.getKey());
+        PersistentRedBlackTree<Integer> tree = pair.getValue();
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(sorted.get(i), tree.select(i));
+            assertEquals(i, tree.rank(sorted.get(i)));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.select(sorted.size()));
+        assertEquals(0, tree.rank(Integer.MIN_VALUE));
+        assertEquals(sorted.size(), tree.rank(Integer.MAX_VALUE) + (sorted.contains(Integer.MAX_VALUE) ? 1 : 0));
+    }
+
+    @Test
+    void should_iterate_lazily() {
+        assertFalse(new PersistentRedBlackTree<Integer>().iterator().hasNext());
+        assertThrows(NoSuchElementException.class, () -> new PersistentRedBlackTree<Integer>().iterator().next());
+
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> pair = fillTrees(1000);
+        Iterator<Integer> expected = pair.getKey().iterator();
+        Iterator<Integer> actual = pair.getValue().iterator();
+        while (expected.hasNext()) {
+            assertTrue(actual.hasNext());
+            assertEquals(expected.next(), actual.next());
+        }
+        assertFalse(actual.hasNext());
+        assertThrows(NoSuchElementException.class, actual::next);
+    }
+
+    @Test
+    void should_stream() {
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> pair = fillTrees(1000);
+        TreeSet<Integer> treeSet = pair.getKey();
+        PersistentRedBlackTree<Integer> tree = pair.getValue();
+
+        Spliterator<Integer> spliterator = tree.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED | Spliterator.ORDERED | Spliterator.SIZED | Spliterator.DISTINCT));
+        assertNull(spliterator.getComparator());
+        assertEquals(treeSet.size(), spliterator.getExactSizeIfKnown());
+
+        assertEquals(new ArrayList<>(treeSet), tree.stream().collect(Collectors.toList()));
+        assertEquals(new ArrayList<>(treeSet), tree.stream().parallel().collect(Collectors.toList()));
+        assertEquals(treeSet.stream().mapToLong(Integer::longValue).sum(),
+                tree.stream().parallel().mapToLong(Integer::longValue).sum());
+        assertEquals(Comparator.reverseOrder(),
+                new PersistentRedBlackTree<Integer>(Comparator.reverseOrder()).spliterator().getComparator());
+    }
+
+    @Test
+    void should_split_spliterator() {
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> pair = fillTrees(100);
+        List<Integer> expected = new ArrayList<>(pair.getKey());
+        Deque<Spliterator<Integer>> pending = new ArrayDeque<>();
+        pending.push(pair.getValue().spliterator());
+        List<Integer> actual = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            Spliterator<Integer> spliterator = pending.pop();
+            long size = spliterator.estimateSize();
+            Spliterator<Integer> prefix = spliterator.trySplit();
+            if (prefix == null) {
+                spliterator.forEachRemaining(actual::add);
+            } else {
+                assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+                pending.push(spliterator);
+                pending.push(prefix);
+            }
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void should_compare_structurally() {
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> pair = fillTrees(1000);
+        PersistentRedBlackTree<Integer> tree = pair.getValue();
+        PersistentRedBlackTree<Integer> copy = new PersistentRedBlackTree<>();
+        for (Integer v : pair.getKey()) {
+            copy = copy.add(v);
+        }
+        PersistentRedBlackTree<Integer> rebuilt = new PersistentRedBlackTree<>();
+        for (Integer v : tree) {
+            rebuilt = rebuilt.add(v);
+        }
+        assertEquals(copy, rebuilt);
+        assertEquals(copy.hashCode(), rebuilt.hashCode());
+
+        Integer v = pair.getKey().first();
+        PersistentRedBlackTree<Integer> left = tree.remove(v), right = tree.remove(v);
+        assertNotSame(left.root, right.root);
+        assertEquals(left, right);
+        assertEquals(left.hashCode(), right.hashCode());
+        assertNotEquals(tree, left);
+        assertNotEquals(left.add(v - 1), right.add(v - 2));
+    }
+
+    @Test
+    void should_build_from_sorted() {
+        for (int n = 0; n < 300; n++) {
+            List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                keys.add(i * 2);
+            }
+            PersistentRedBlackTree<Integer> tree = PersistentRedBlackTree.fromSorted(keys);
+            validate(tree);
+            assertEquals(keys, tree.asList());
+            assertEquals(n, tree.size());
+        }
+
+        PersistentRedBlackTree<Integer> tree = PersistentRedBlackTree.fromSorted(new Integer[]{5, 3, 1},
+                Comparator.reverseOrder());
+        Validator.checkRedNode(tree.root);
+        Validator.checkBlackHeight(tree.root);
+        assertEquals(Arrays.asList(5, 3, 1), tree.asList());
+        assertEquals(Arrays.asList(6, 5, 3, 1), tree.add(6).asList());
+
+        Iterable<Integer> iterable = () -> Arrays.asList(1, 2, 3).iterator();
+        assertEquals(Arrays.asList(1, 2, 3), PersistentRedBlackTree.fromSorted(iterable).asList());
+
+        assertThrows(IllegalArgumentException.class, () -> PersistentRedBlackTree.fromSorted(new Integer[]{1, 3, 2}));
+        assertThrows(IllegalArgumentException.class, () -> PersistentRedBlackTree.fromSorted(new Integer[]{1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> PersistentRedBlackTree.fromSorted(new Integer[]{1, null}));
+    }
+
+    @Test
+    void should_apply_batch_through_transient() {
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> pair = fillTrees(1000);
+        TreeSet<Integer> treeSet = pair.getKey();
+        PersistentRedBlackTree<Integer> source = pair.getValue();
+        List<Integer> sourceKeys = source.asList();
+        int sourceHash = source.hashCode();
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TransientRedBlackTree<Integer> transientTree = source.asTransient();
+        List<Integer> present = new ArrayList<>(treeSet);
+        for (int i = 0; i < 5000; i++) {
+            if (random.nextBoolean() || present.isEmpty()) {
+                int v = random.nextInt();
+                if (treeSet.add(v)) {
+                    transientTree.add(v);
+                    present.add(v);
+                }
+            } else {
+                int v = present.remove(random.nextInt(present.size()));
+                treeSet.remove(v);
+                transientTree.remove(v);
+            }
+            assertEquals(treeSet.size(), transientTree.size());
+        }
+        PersistentRedBlackTree<Integer> result = transientTree.persistent();
+
+        validate(result);
+        assertEquals(new ArrayList<>(treeSet), result.asList());
+        assertEquals(sourceKeys, source.asList());
+        assertEquals(sourceHash, source.hashCode());
+        validate(source);
+
+        assertThrows(IllegalStateException.class, () -> transientTree.add(1));
+        assertThrows(IllegalStateException.class, transientTree::persistent);
+    }
+
+    @Test
+    void should_not_touch_previous_transient_results() {
+        PersistentRedBlackTree<Integer> first = new PersistentRedBlackTree<Integer>().asTransient()
+                .addAll(Arrays.asList(5, 3, 8, 1, 4, 7, 9, 2, 6))
+                .persistent();
+        List<Integer> firstKeys = first.asList();
+        int firstHash = first.hashCode();
+
+        PersistentRedBlackTree<Integer> second = first.asTransient()
+                .removeAll(Arrays.asList(1, 5, 9))
+                .addAll(Arrays.asList(10, 0))
+                .persistent();
+
+        assertEquals(firstKeys, first.asList());
+        assertEquals(firstHash, first.hashCode());
+        assertEquals(Arrays.asList(0, 2, 3, 4, 6, 7, 8, 10), second.asList());
+        validate(first);
+        validate(second);
+
+        PersistentRedBlackTree<Integer> persistent = new PersistentRedBlackTree<Integer>();
+        for (int v : Arrays.asList(5, 3, 8, 1, 4, 7, 9, 2, 6)) {
+            persistent = persistent.add(v);
+        }
+        assertEquals(persistent, first);
+        assertEquals(persistent.hashCode(), first.hashCode());
+    }
+
+    @Test
+    void should_keep_transient_balanced_after_remove_and_add() {
+        for (int n = 1; n < 64; n++) {
+            Integer[] keys = new Integer[n];
+            for (int i = 0; i < n; i++) keys[i] = 2 * i;
+            PersistentRedBlackTree<Integer> source = fromSorted(keys);
+            for (int i = 0; i < n; i++) {
+                for (int added = -1; added < 2 * n; added += 2) {
+                    PersistentRedBlackTree<Integer> result = source.asTransient()
+                            .remove(2 * i)
+                            .add(added)
+                            .persistent();
+                    validate(result);
+                    assertEquals(n, result.size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void should_not_change_transient_on_noop() {
+        PersistentRedBlackTree<Integer> source = fromSorted(new Integer[]{1, 2, 3, 4, 5});
+        PersistentRedBlackTree<Integer> result = source.asTransient()
+                .addAll(Arrays.asList(1, 3, 5))
+                .removeAll(Arrays.asList(0, 6))
+                .persistent();
+
+        assertSame(source.root, result.root);
+    }
+
+    @Test
+    void should_combine_sets() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 200; i++) {
+            TreeSet<Integer> first = new TreeSet<>();
+            TreeSet<Integer> second = new TreeSet<>();
+            int firstSize = random.nextInt(300);
+            int secondSize = random.nextInt(300);
+            int bound = 1 + random.nextInt(1000);
+            for (int j = 0; j < firstSize; j++) first.add(random.nextInt(bound));
+            for (int j = 0; j < secondSize; j++) second.add(random.nextInt(bound));
+            PersistentRedBlackTree<Integer> a = fromSorted(first);
+            PersistentRedBlackTree<Integer> b = new PersistentRedBlackTree<Integer>().asTransient().addAll(second).persistent();
+
+            TreeSet<Integer> union = new TreeSet<>(first);
+            union.addAll(second);
+            TreeSet<Integer> intersection = new TreeSet<>(first);
+            intersection.retainAll(second);
+            TreeSet<Integer> difference = new TreeSet<>(first);
+            difference.removeAll(second);
+
+            PersistentRedBlackTree<Integer> unionTree = a.union(b);
+            PersistentRedBlackTree<Integer> intersectionTree = a.intersection(b);
+            PersistentRedBlackTree<Integer> differenceTree = a.difference(b);
+            assertEquals(new ArrayList<>(union), unionTree.asList());
+            assertEquals(new ArrayList<>(intersection), intersectionTree.asList());
+            assertEquals(new ArrayList<>(difference), differenceTree.asList());
+            validate(unionTree);
+            validate(intersectionTree);
+            validate(differenceTree);
+            assertEquals(new ArrayList<>(first), a.asList());
+            assertEquals(new ArrayList<>(second), b.asList());
+        }
+    }
+
+    @Test
+    void should_navigate() {
+        Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> trees = fillTrees(1000);
+        TreeSet<Integer> treeSet = trees.getKey();
+        PersistentRedBlackTree<Integer> tree = trees.getValue();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 1000; i++) {
+            Integer x = i % 2 == 0 ? Integer.valueOf(random.nextInt()) : treeSet.ceiling(random.nextInt());
+            if (x == null) continue;
+            assertEquals(treeSet.floor(x), tree.floor(x));
+            assertEquals(treeSet.ceiling(x), tree.ceiling(x));
+            assertEquals(treeSet.lower(x), tree.lower(x));
+            assertEquals(treeSet.higher(x), tree.higher(x));
+        }
+        assertNull(new PersistentRedBlackTree<Integer>().floor(1));
+        assertThrows(IllegalArgumentException.class, () -> tree.higher(null));
+    }
+
+    @Test
+    void should_split_into_ranges() {
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 500; i++) treeSet.add(random.nextInt(2000));
+        PersistentRedBlackTree<Integer> tree = fromSorted(treeSet);
+        for (int i = 0; i < 300; i++) {
+            int from = random.nextInt(2200) - 100;
+            int to = from + random.nextInt(2200 - from);
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+
+            PersistentRedBlackTree<Integer> subSet = tree.subSet(from, fromInclusive, to, toInclusive);
+            PersistentRedBlackTree<Integer> headSet = tree.headSet(to, toInclusive);
+            PersistentRedBlackTree<Integer> tailSet = tree.tailSet(from, fromInclusive);
+            assertEquals(new ArrayList<>(treeSet.subSet(from, fromInclusive, to, toInclusive)), subSet.asList());
+            assertEquals(new ArrayList<>(treeSet.headSet(to, toInclusive)), headSet.asList());
+            assertEquals(new ArrayList<>(treeSet.tailSet(from, fromInclusive)), tailSet.asList());
+            validate(subSet);
+            validate(headSet);
+            validate(tailSet);
+        }
+        assertEquals(new ArrayList<>(treeSet.subSet(100, 200)), tree.subSet(100, 200).asList());
+        assertSame(tree, tree.headSet(5000));
+        assertSame(tree, tree.tailSet(-1));
+        assertTrue(tree.subSet(3000, 4000).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> tree.subSet(2, 1));
+    }
+
+    @Test
+    void should_combine_sets_in_parallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 20; i++) {
+                PersistentRedBlackTree<Integer> a = fillTrees(random.nextInt(5000)).getValue();
+                PersistentRedBlackTree<Integer> b = fillTrees(random.nextInt(5000)).getValue().union(a.pollMin().getValue());
+
+                PersistentRedBlackTree<Integer> union = a.unionParallel(b, pool, 64);
+                PersistentRedBlackTree<Integer> difference = a.differenceParallel(b, pool, 64);
+                assertEquals(a.union(b).asList(), union.asList());
+                assertEquals(a.difference(b).asList(), difference.asList());
+                validate(union);
+                validate(difference);
+            }
+            PersistentRedBlackTree<Integer> tree = fillTrees(1000).getValue();
+            assertSame(tree, tree.unionParallel(new PersistentRedBlackTree<>(), pool, 0));
+            assertEquals(tree.asList(), new PersistentRedBlackTree<Integer>().unionParallel(tree, pool).asList());
+            assertThrows(IllegalArgumentException.class, () -> tree.unionParallel(tree, pool, -1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void should_reuse_subtrees_when_combining() {
+        PersistentRedBlackTree<Integer> low = fromSorted(Stream.iterate(0, i -> i + 1).limit(1000)
+                .collect(Collectors.toList()));
+        PersistentRedBlackTree<Integer> high = fromSorted(Stream.iterate(1000, i -> i + 1).limit(10)
+                .collect(Collectors.toList()));
+        PersistentRedBlackTree<Integer> empty = new PersistentRedBlackTree<>();
+
+        assertSame(low, low.union(empty));
+        assertSame(low, low.union(low));
+        assertSame(low, low.intersection(low));
+        assertSame(low, low.difference(empty));
+        assertSame(low, low.difference(high));
+        assertTrue(low.difference(low).isEmpty());
+        assertTrue(low.intersection(high).isEmpty());
+
+        PersistentRedBlackTree<Integer> union = low.union(high);
+        validate(union);
+        assertEquals(1010, union.size());
+        Node<Integer> lowLeft = low.root.left();
+        Node<Integer> node = union.root;
+        while (node.size() > lowLeft.size() && node != lowLeft) {
+            node = node.left();
+        }
+        assertSame(lowLeft, node);
+    }
+
     @Test
     void should_use_different_comparators() {
         PersistentRedBlackTree<String> ascendingTree = new PersistentRedBlackTree<String>()
@@ -474,6 +878,52 @@ class PersistentRedBlackTreeTest {
         assertEquals(ascendingTree.peekMin(), descendingTree.peekMin());
     }
 
+    @Test
+    void should_diff_versions() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PersistentRedBlackTree<Integer> older = fillTrees(100_000).getValue();
+        PersistentRedBlackTree<Integer> newer = older;
+        for (int i = 0; i < 3; i++) {
+            newer = newer.add(random.nextInt()).remove(newer.select(random.nextInt(newer.size())));
+        }
+        // keys are compared only around the changed paths
+        int[] compares = new int[1];
+        Comparator<Integer> counting = (a, b) -> {
+            compares[0]++;
+            return a.compareTo(b);
+        };
+        PersistentRedBlackTree<Integer> countingOlder = new PersistentRedBlackTree<>(older.root, counting);
+        PersistentRedBlackTree<Integer> countingNewer = new PersistentRedBlackTree<>(newer.root, counting);
+        assertDiff(countingOlder, countingNewer);
+        assertTrue(compares[0] < 6 * 4 * NodeIterator.maxHeight(older.size()), "Compares: " + compares[0]);
+
+        assertDiff(older, older);
+        assertDiff(new PersistentRedBlackTree<>(), older);
+        assertDiff(older, new PersistentRedBlackTree<>());
+        for (int i = 0; i < 20; i++) {
+            assertDiff(fillTrees(random.nextInt(200)).getValue(), fillTrees(random.nextInt(200)).getValue());
+            PersistentRedBlackTree<Integer> tree = fillTrees(random.nextInt(200)).getValue();
+            assertDiff(tree, tree.union(fillTrees(random.nextInt(20)).getValue()).difference(
+                    fillTrees(random.nextInt(20)).getValue().union(tree.subSet(0, Integer.MAX_VALUE))));
+        }
+    }
+
+    private static void assertDiff(PersistentRedBlackTree<Integer> older, PersistentRedBlackTree<Integer> newer) {
+        List<Integer> added = new ArrayList<>(), removed = new ArrayList<>(), changes = new ArrayList<>();
+        diff(older, newer, key -> {
+            added.add(key);
+            changes.add(key);
+        }, key -> {
+            removed.add(key);
+            changes.add(key);
+        });
+        assertEquals(newer.difference(older).asList(), added);
+        assertEquals(older.difference(newer).asList(), removed);
+        List<Integer> sorted = new ArrayList<>(changes);
+        Collections.sort(sorted);
+        assertEquals(sorted, changes);
+    }
+
     private static Pair<TreeSet<Integer>, PersistentRedBlackTree<Integer>> fillTrees(int n) {
         TreeSet<Integer> treeSet = new TreeSet<>();
         ThreadLocalRandom random = ThreadLocalRandom.current();
@@ -0,0 +1,126 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static me.collections.persistent.redblacktree.Validator.validate;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class PersistentTreeMapTest {
+
+    @Test
+    void should_put_and_get() {
+        assertThrows(IllegalArgumentException.class, () -> new PersistentTreeMap<Integer, String>().put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> new PersistentTreeMap<Integer, String>().put(1, null));
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, Integer> map = new PersistentTreeMap<>();
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(500);
+            int value = random.nextInt();
+            PersistentTreeMap<Integer, Integer> newMap = map.put(key, value);
+            expected.put(key, value);
+
+            validate(newMap);
+            assertEquals(expected.size(), newMap.size());
+            assertEquals(value, newMap.get(key).intValue());
+            assertEquals(new ArrayList<>(expected.entrySet()), entries(newMap));
+            map = newMap;
+        }
+    }
+
+    @Test
+    void should_return_same_map_for_same_value() {
+        String value = "value";
+        PersistentTreeMap<Integer, String> map = new PersistentTreeMap<Integer, String>()
+                .put(1, "a").put(2, value).put(3, "c");
+        assertSame(map, map.put(2, value));
+
+        PersistentTreeMap<Integer, String> replaced = map.put(2, "other");
+        assertNotSame(map, replaced);
+        assertEquals(value, map.get(2));
+        assertEquals("other", replaced.get(2));
+        validate(replaced);
+    }
+
+    @Test
+    void should_compare_payload_both_ways() {
+        Node<Integer> plain = new Node<>(1, Node.nil(), Node.nil(), Node.Color.BLACK);
+        // a null value hashes like no payload at all, only payloadEquals tells the nodes apart
+        Node<Integer> mapped = new MapNode<>(1, null, Node.nil(), Node.nil(), Node.Color.BLACK);
+        assertEquals(plain.hashCode(), mapped.hashCode());
+        assertNotEquals(plain, mapped);
+        assertNotEquals(mapped, plain);
+        assertEquals(mapped, new MapNode<>(1, null, Node.nil(), Node.nil(), Node.Color.BLACK));
+    }
+
+    @Test
+    void should_remove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        PersistentTreeMap<Integer, Integer> map = new PersistentTreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            int key = random.nextInt();
+            map = map.put(key, i);
+            expected.put(key, i);
+        }
+
+        List<Integer> keys = new ArrayList<>(expected.keySet());
+        Collections.shuffle(keys);
+        for (Integer key : keys) {
+            map = map.remove(key);
+            expected.remove(key);
+
+            validate(map);
+            assertSame(map, map.remove(key));
+            assertFalse(map.containsKey(key));
+            assertNull(map.get(key));
+            assertEquals(new ArrayList<>(expected.entrySet()), entries(map));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void should_find_floor_and_ceiling() {
+        PersistentTreeMap<Integer, String> map = new PersistentTreeMap<>();
+        assertNull(map.firstEntry());
+        assertNull(map.lastEntry());
+        assertNull(map.floorEntry(1));
+        assertNull(map.ceilingEntry(1));
+
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 100; i += 10) {
+            map = map.put(i, "v" + i);
+            expected.put(i, "v" + i);
+        }
+        for (int i = -5; i < 105; i++) {
+            assertEquals(expected.floorEntry(i), map.floorEntry(i));
+            assertEquals(expected.ceilingEntry(i), map.ceilingEntry(i));
+        }
+        assertEquals(expected.firstEntry(), map.firstEntry());
+        assertEquals(expected.lastEntry(), map.lastEntry());
+    }
+
+    @Test
+    void should_keep_old_versions() {
+        PersistentTreeMap<String, Integer> v1 = new PersistentTreeMap<String, Integer>().put("a", 1).put("b", 2);
+        PersistentTreeMap<String, Integer> v2 = v1.put("a", 10).remove("b");
+        assertEquals(1, v1.get("a").intValue());
+        assertEquals(2, v1.get("b").intValue());
+        assertEquals(10, v2.get("a").intValue());
+        assertNull(v2.get("b"));
+    }
+
+    private static <K extends Comparable<K>, V> List<Map.Entry<K, V>> entries(PersistentTreeMap<K, V> map) {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        map.forEach(entries::add);
+        return entries;
+    }
+}
@@ -0,0 +1,68 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The long-specialized trees copy the balancing engine of {@link PersistentRedBlackTree}. The same operations must
+ * give the same shapes in all three, so that a fix to one engine that misses the others shows up here.
+ *
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class RedBlackTreeEnginesTest {
+
+    @Test
+    void should_build_same_shapes() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PersistentRedBlackTree<Long> generic = new PersistentRedBlackTree<>();
+        PersistentLongRedBlackTree specialized = new PersistentLongRedBlackTree();
+        OffHeapLongRedBlackTree offHeap = new OffHeapLongRedBlackTree(new LongArena());
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextLong(-300, 300);
+            int operation = random.nextInt(10);
+            String description;
+            if (operation < 5) {
+                description = "add " + key;
+                generic = generic.add(key);
+                specialized = specialized.add(key);
+                offHeap = offHeap.add(key);
+            } else if (operation < 9 || generic.isEmpty()) {
+                description = "remove " + key;
+                generic = generic.remove(key);
+                specialized = specialized.remove(key);
+                offHeap = offHeap.remove(key);
+            } else {
+                description = "remove min";
+                generic = generic.pollMin().getValue();
+                specialized = specialized.removeMin();
+                offHeap = offHeap.removeMin();
+            }
+            String expected = shape(generic.root);
+            assertEquals(expected, shape(specialized.root), description);
+            assertEquals(expected, shape(offHeap.arena(), offHeap.root), description);
+        }
+    }
+
+    private static String shape(Node<Long> node) {
+        if (node.isNil()) return ".";
+        return (node.isRed() ? "R" : node.isBlack() ? "B" : "BB") + node.key()
+                + "(" + shape(node.left()) + " " + shape(node.right()) + ")";
+    }
+
+    private static String shape(LongNode node) {
+        if (node.isNil()) return ".";
+        return (node.color == LongNode.RED ? "R" : node.color == LongNode.BLACK ? "B" : "BB") + node.key
+                + "(" + shape(node.left) + " " + shape(node.right) + ")";
+    }
+
+    private static String shape(LongArena arena, int node) {
+        if (node == LongArena.NIL) return ".";
+        byte color = arena.color(node);
+        return (color == LongArena.RED ? "R" : color == LongArena.BLACK ? "B" : "BB") + arena.key(node)
+                + "(" + shape(arena, arena.left(node)) + " " + shape(arena, arena.right(node)) + ")";
+    }
+}
@@ -0,0 +1,64 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class SharedRedBlackTreeTest {
+
+    @Test
+    void should_not_lose_concurrent_updates() throws Exception {
+        int threads = 8, keys = 2000;
+        SharedRedBlackTree<Integer> shared = new SharedRedBlackTree<>();
+        AtomicInteger added = new AtomicInteger(), removed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < keys; i++) {
+                        // threads race for the same keys, each change is reported to exactly one of them
+                        if (shared.add(random.nextInt(keys))) added.incrementAndGet();
+                        if (shared.remove(random.nextInt(keys))) removed.incrementAndGet();
+                        PersistentRedBlackTree<Integer> snapshot = shared.get();
+                        assertEquals(snapshot.size(), snapshot.asList().size());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Validator.validate(shared.get());
+        assertEquals(added.get() - removed.get(), shared.size());
+    }
+
+    @Test
+    void should_skip_updates_that_change_nothing() {
+        PersistentRedBlackTree<Integer> initial = PersistentRedBlackTree.fromSorted(new Integer[]{1, 2, 3});
+        SharedRedBlackTree<Integer> shared = new SharedRedBlackTree<>(initial);
+        assertFalse(shared.add(2));
+        assertFalse(shared.remove(4));
+        assertSame(initial, shared.get());
+        assertSame(initial, shared.getAndUpdate(tree -> tree.add(4)));
+        assertTrue(shared.contains(4));
+        assertEquals(3, shared.updateAndGet(tree -> tree.remove(1)).size());
+        assertThrows(IllegalArgumentException.class, () -> shared.updateAndGet(tree -> null));
+        assertThrows(IllegalArgumentException.class, () -> shared.add(null));
+    }
+}
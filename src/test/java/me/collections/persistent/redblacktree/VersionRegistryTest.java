@@ -0,0 +1,156 @@
+package me.collections.persistent.redblacktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author nickolaysaveliev
+ * @since 18/10/2026
+ */
+class VersionRegistryTest {
+
+    @Test
+    void should_read_retained_versions() {
+        VersionRegistry<Integer> registry = new VersionRegistry<Integer>().retainLast(3);
+        assertThrows(NoSuchElementException.class, registry::latest);
+        List<PersistentRedBlackTree<Integer>> history = new ArrayList<>();
+        PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+        for (int i = 0; i < 40; i++) {
+            tree = tree.add(i);
+            history.add(tree);
+            assertEquals(i, registry.commit(tree));
+        }
+        assertEquals(37, registry.oldest());
+        assertEquals(39, registry.latest());
+        assertEquals(3, registry.retained());
+        for (long version = 37; version < 40; version++) {
+            assertSame(history.get((int) version), registry.at(version));
+        }
+        assertThrows(NoSuchElementException.class, () -> registry.at(36));
+        assertThrows(NoSuchElementException.class, () -> registry.at(40));
+        registry.retainLast(1);
+        assertEquals(39, registry.oldest());
+    }
+
+    @Test
+    void should_count_shared_nodes_once() {
+        VersionRegistry<Integer> registry = new VersionRegistry<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PersistentRedBlackTree<Integer> tree = new PersistentRedBlackTree<>();
+        for (int i = 0; i < 5000; i++) {
+            tree = tree.add(random.nextInt(10000));
+        }
+        registry.commit(tree);
+        assertEquals(tree.size(), registry.retainedNodes());
+        for (int i = 0; i < 100; i++) {
+            tree = random.nextBoolean() ? tree.add(random.nextInt(10000)) : tree.remove(random.nextInt(10000));
+            registry.commit(tree);
+        }
+        assertEquals(distinctNodes(registry), registry.retainedNodes());
+        assertEquals(VersionRegistry.NODE_BYTES * registry.retainedNodes(), registry.retainedBytes());
+        assertEquals(tree.size(), registry.sharedWithLatest(registry.latest()));
+        Map<Long, Integer> report = registry.sharedWithLatest();
+        assertEquals(101, report.size());
+        for (Map.Entry<Long, Integer> entry : report.entrySet()) {
+            assertEquals(sharedWithLatest(registry, entry.getKey()), (int) entry.getValue());
+        }
+
+        registry.retainLast(10);
+        assertEquals(distinctNodes(registry), registry.retainedNodes());
+        // the newest versions share all but the copied paths
+        assertTrue(registry.sharedWithLatest(registry.oldest()) > tree.size() - 10 * 3 * 16);
+    }
+
+    @Test
+    void should_drop_versions_by_age_and_budget() {
+        MutableClock clock = new MutableClock();
+        VersionRegistry<Integer> registry = new VersionRegistry<Integer>(clock).retainFor(Duration.ofSeconds(15));
+        PersistentRedBlackTree<Integer> tree = PersistentRedBlackTree.fromSorted(new Integer[]{1, 2, 3});
+        registry.commit(tree);
+        clock.advance(10);
+        registry.commit(tree.add(4));
+        clock.advance(10);
+        registry.commit(tree.add(5));
+        assertEquals(1, registry.oldest());
+        clock.advance(100);
+        registry.commit(tree.add(6));
+        assertEquals(3, registry.oldest());
+        assertEquals(1, registry.retained());
+
+        VersionRegistry<Integer> budget = new VersionRegistry<Integer>()
+                .retainWithin(VersionRegistry.NODE_BYTES * 1010L);
+        PersistentRedBlackTree<Integer> large = new PersistentRedBlackTree<>();
+        for (int i = 0; i < 1000; i++) {
+            large = large.add(i);
+        }
+        budget.commit(large);
+        budget.commit(large.add(-1));
+        assertEquals(2, budget.retained());
+        budget.commit(PersistentRedBlackTree.fromSorted(new Integer[]{1}));
+        // the latest version is kept whatever the budget
+        budget.retainWithin(0);
+        assertEquals(1, budget.retained());
+        assertEquals(1, budget.retainedNodes());
+    }
+
+    private static long distinctNodes(VersionRegistry<Integer> registry) {
+        Set<Node<Integer>> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (long version = registry.oldest(); version <= registry.latest(); version++) {
+            collect(registry.at(version).root, nodes);
+        }
+        return nodes.size();
+    }
+
+    private static int sharedWithLatest(VersionRegistry<Integer> registry, long version) {
+        Set<Node<Integer>> latest = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(registry.at(registry.latest()).root, latest);
+        Set<Node<Integer>> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(registry.at(version).root, nodes);
+        nodes.retainAll(latest);
+        return nodes.size();
+    }
+
+    private static void collect(Node<Integer> node, Set<Node<Integer>> nodes) {
+        if (node.isNil()) return;
+        nodes.add(node);
+        collect(node.left(), nodes);
+        collect(node.right(), nodes);
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis;
+
+        void advance(long seconds) {
+            millis += seconds * 1000;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}